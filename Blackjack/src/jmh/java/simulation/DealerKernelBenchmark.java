@@ -0,0 +1,120 @@
+package simulation;
+
+import model.HandTotal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the scalar and the vector dealer kernels on the same batch of rounds.
+ * Run with {@code mvn -Pbench verify}.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class DealerKernelBenchmark {
+
+    @Param({"1024", "16384"})
+    private int lanes;
+
+    @Param({"false", "true"})
+    private boolean hitSoft17;
+
+    // Variables
+    private final int shoeSize = 6 * 52;
+    private Arena arena;
+    private MemorySegment shoes;
+    private boolean[] live;
+    private int[] startTotal, dealerTotal, cursor;
+    private DealerKernel scalar, vector;
+
+    /**
+     * Builds random shoes and dealer hands; about one round in six has already ended before the dealer plays.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        arena = Arena.ofConfined();
+        shoes = OffHeap.allocate(arena, (long) lanes * shoeSize);
+        for (long i = 0; i < (long) lanes * shoeSize; i++) {
+            byte value = BatchRoundEvaluator.CARD_VALUES[random.nextInt(BatchRoundEvaluator.CARD_VALUES.length)];
+            shoes.set(ValueLayout.JAVA_BYTE, i, value);
+        }
+
+        live = new boolean[lanes];
+        startTotal = new int[lanes];
+        for (int lane = 0; lane < lanes; lane++) {
+            live[lane] = random.nextInt(6) != 0;
+            long base = (long) lane * shoeSize;
+            startTotal[lane] = HandTotal.add(HandTotal.of(shoes.get(ValueLayout.JAVA_BYTE, base)),
+                    shoes.get(ValueLayout.JAVA_BYTE, base + 1));
+        }
+        dealerTotal = new int[lanes];
+        cursor = new int[lanes];
+
+        scalar = new ScalarDealerKernel(hitSoft17);
+        vector = new VectorDealerKernel(hitSoft17);
+    }
+
+    /**
+     * Frees the shoes.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        arena.close();
+    }
+
+    /**
+     * Restores the starting hands before every call.
+     */
+    @Setup(Level.Invocation)
+    public void reset() {
+        System.arraycopy(startTotal, 0, dealerTotal, 0, lanes);
+        Arrays.fill(cursor, 2);
+    }
+
+    /**
+     * Resolves the batch with the scalar kernel.
+     *
+     * @return the dealer totals, consumed by JMH
+     */
+    @Benchmark
+    public int[] scalar() {
+        scalar.resolve(dealerTotal, live, shoes, shoeSize, cursor, lanes);
+        return dealerTotal;
+    }
+
+    /**
+     * Resolves the batch with the vector kernel.
+     *
+     * @return the dealer totals, consumed by JMH
+     */
+    @Benchmark
+    public int[] vector() {
+        vector.resolve(dealerTotal, live, shoes, shoeSize, cursor, lanes);
+        return dealerTotal;
+    }
+}
@@ -1,10 +1,30 @@
 import javax.swing.*;
+import controller.Drill;
 import controller.Game;
+import model.Rules;
+import simulation.Simulator;
+import simulation.Tournament;
+import storage.ShuffleAudit;
+import view.CardImages;
+import view.LatencyHarness;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Main class for the Blackjack application.
  * This class initializes the game by taking a player's name as input,
  * either through a command-line argument or a GUI dialog prompt.
+ * Table rules are read from "--" options, see {@link Rules#parse(String[])}.
+ * With {@code --simulate[=<rounds>]} (or {@code --dump=<file>}) no window is opened and the {@link Simulator} runs instead,
+ * {@code --audit=<file>} checks the log of a certified shuffle table ({@link ShuffleAudit})
+ * and {@code --latency[=<presses>]} measures the responsiveness of the window ({@link LatencyHarness}).
+ * {@code --drill} opens the strategy {@link Drill} instead of a table,
+ * and {@code --tournament[=<bots>]} runs a {@link Tournament} of bots on the command line.
  *
  * @author ptrzgal
  * @version 1.0.0
@@ -15,13 +35,80 @@ public class Blackjack {
      * The entry point of the application. Initializes the game with the player's name.
      * If no command-line argument is provided, prompts the user for input via a GUI dialog.
      *
-     * @param args an array of command-line arguments. The first argument is expected to be the player's name.
+     * @param args an array of command-line arguments. The argument not starting with "--" is expected to be the player's name,
+     *             the others are rule options (e.g. --decks=6 --h17 or --rules=table.properties)
+     *             and {@code --auto-advance=<seconds>}, which deals the next round by itself after showing a result.
      */
     public static void main(String[] args) {
         String fileName = "";
 
+        // Command-line simulation mode
+        if (Arrays.stream(args).anyMatch(arg -> arg.startsWith("--simulate") || arg.startsWith("--dump="))) {
+            Simulator.main(args);
+            return;
+        }
+
+        // Command-line tournament of bots
+        if (Arrays.stream(args).anyMatch(arg -> arg.startsWith("--tournament"))) {
+            Tournament.main(args);
+            return;
+        }
+
+        // Scripted key presses timing the window
+        if (Arrays.stream(args).anyMatch(arg -> arg.startsWith("--latency"))) {
+            LatencyHarness.main(args);
+            return;
+        }
+
+        // Command-line audit of certified shuffles
+        for (String arg : args) {
+            if (arg.startsWith("--audit=")) {
+                try {
+                    System.out.println(ShuffleAudit.verify(Path.of(arg.substring("--audit=".length())))
+                            + " shoe(s) match their commitments");
+                } catch (IOException e) {
+                    System.err.println("Audit failed: " + e.getMessage());
+                    System.exit(1);
+                }
+                return;
+            }
+        }
+
+        // Decode the card images in the background while the player types their name
+        CardImages.preload();
+
+        // Read the table rules from the options, besides the flags of the application itself
+        Rules rules = Rules.DEFAULT;
+        try {
+            rules = Rules.parse(args, Set.of("audit", "auto-advance", "drill"));
+        } catch (IllegalArgumentException | UncheckedIOException e) {
+            JOptionPane.showMessageDialog(null, e.getMessage());
+            System.exit(0);
+        }
+
+        // Drill mode needs no player name
+        if (Arrays.asList(args).contains("--drill")) {
+            Rules drillRules = rules;
+            SwingUtilities.invokeLater(() -> Drill.open(drillRules));
+            return;
+        }
+        List<String> names = Arrays.stream(args).filter(arg -> !arg.startsWith("--")).toList();
+
+        // Seconds the result is shown before the next round is dealt by itself, if given
+        int autoAdvance = 0;
+        for (String arg : args) {
+            if (arg.startsWith("--auto-advance=")) {
+                try {
+                    autoAdvance = (int) Math.round(1000 * Double.parseDouble(arg.substring("--auto-advance=".length())));
+                } catch (NumberFormatException e) {
+                    JOptionPane.showMessageDialog(null, "Invalid auto-advance delay: " + arg);
+                    System.exit(0);
+                }
+            }
+        }
+
         // Check if a player name was provided as a command-line argument
-        if (args.length != 1) {
+        if (names.size() != 1) {
             // Prompt the user for the player name via a GUI dialog if no or incorrect arguments are provided
             fileName = JOptionPane.showInputDialog(
                     null,
@@ -36,11 +123,14 @@ public class Blackjack {
                 System.exit(0);
             }
         } else {
-            // Use the player name provided as the first command-line argument
-            fileName = args[0];
+            // Use the player name provided as the command-line argument
+            fileName = names.getFirst();
         }
 
-        // Initialize the game with the specified player name
-        Game game = new Game(fileName);
+        // Initialize the game with the specified player name on the Swing event thread
+        String playerName = fileName;
+        Rules tableRules = rules;
+        int delay = autoAdvance;
+        SwingUtilities.invokeLater(() -> new Game(playerName, tableRules).setAutoAdvance(delay));
     }
 }
\ No newline at end of file
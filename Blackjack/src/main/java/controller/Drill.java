@@ -0,0 +1,127 @@
+package controller;
+
+import lombok.Getter;
+import model.Rules;
+import strategy.Action;
+import strategy.DrillGenerator;
+import strategy.RuleTables;
+import view.DrillView;
+
+import javax.swing.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+
+/**
+ * The controller of the drill mode: instead of playing whole rounds, the player answers one situation after another
+ * (a two-card hand against a dealer upcard) and is told at once whether the answer matches the strategy table of the
+ * rules. The situations come from a {@link DrillGenerator}, which favours the ones the player gets wrong.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+@Getter
+public class Drill {
+
+    // Variables
+    private final Rules rules;
+    private final DrillGenerator generator;
+    private DrillView view;
+    private DrillGenerator.Scenario scenario;
+    private long answered, correct;
+    private int streak;
+
+    /**
+     * Constructs the drill of a rule set, without a window yet.
+     *
+     * @param rules the rules, which decide the strategy table and the answers allowed
+     */
+    private Drill(Rules rules) {
+        this.rules = rules;
+        generator = new DrillGenerator(RuleTables.of(rules).strategy());
+    }
+
+    /**
+     * Opens the drill window for a rule set and shows the first scenario.
+     * The window is built once the drill is constructed, since its buttons call back into the drill.
+     *
+     * @param rules the rules, which decide the strategy table and the answers allowed
+     * @return the drill
+     */
+    public static Drill open(Rules rules) {
+        Drill drill = new Drill(rules);
+        drill.view = new DrillView(drill, rules);
+        drill.registerKeyBindings(drill.view);
+        drill.scenario = drill.generator.next();
+        drill.view.showScenario(drill.scenario);
+        return drill;
+    }
+
+    /**
+     * Checks the player's answer, updates the error model and the accuracy, and shows the next scenario at once.
+     *
+     * @param action the player's answer
+     */
+    public void answer(Action action) {
+        boolean right = action == scenario.answer();
+        generator.record(scenario, right);
+        answered++;
+        if (right) {
+            correct++;
+            streak++;
+        } else {
+            streak = 0;
+        }
+        view.showFeedback(scenario, action, right);
+        view.showStats(this);
+
+        scenario = generator.next();
+        view.showScenario(scenario);
+    }
+
+    /**
+     * Returns the share of right answers.
+     *
+     * @return the accuracy, 0 before the first answer
+     */
+    public double accuracy() {
+        return answered == 0 ? 0 : (double) correct / answered;
+    }
+
+    /**
+     * Closes the drill.
+     */
+    public void exit() {
+        generator.close();
+        System.exit(0);
+    }
+
+    /**
+     * Registers the keyboard shortcuts of the answers: H, S, D and R for Hit, Stand, Double and Surrender, Esc to exit.
+     *
+     * @param view the drill view to bind keys to
+     */
+    public void registerKeyBindings(DrillView view) {
+        bind(view.getHitButton(), KeyEvent.VK_H, "hit");
+        bind(view.getStandButton(), KeyEvent.VK_S, "stand");
+        bind(view.getDoubleButton(), KeyEvent.VK_D, "double");
+        bind(view.getSurrenderButton(), KeyEvent.VK_R, "surrender");
+        bind(view.getExitButton(), KeyEvent.VK_ESCAPE, "exit");
+    }
+
+    /**
+     * Binds a key to clicking a button while the drill window is focused.
+     *
+     * @param button the button
+     * @param key the key code
+     * @param name the name of the action
+     */
+    private static void bind(JButton button, int key, String name) {
+        button.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(key, 0), name);
+        button.getActionMap().put(name, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                button.doClick();
+            }
+        });
+    }
+}
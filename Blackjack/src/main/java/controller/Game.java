@@ -1,16 +1,24 @@
 package controller;
 
 import lombok.Getter;
+import storage.GameSnapshot;
+import storage.ShuffleAudit;
+import storage.SnapshotStore;
+import storage.StatsStore;
+import strategy.Action;
 import view.*;
 import model.*;
 
 import javax.swing.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.util.List;
 
 /**
  * The Game class is the controller in the MVC (Model-View-Controller) architecture for the Blackjack game.
- * It manages the game logic, including the flow of the game, player and dealer turns, card dealing, and scoring.
+ * It manages the game logic, including the flow of the game, player and dealer turns, card dealing, and scoring;
+ * the rules of a round are played by a {@link RoundEngine}, which the controller drives and shows step by step.
  * It also handles user interface actions and key bindings.
  * The controller communicates with the model (player, dealer, deck) and updates the view accordingly.
  *
@@ -20,75 +28,157 @@ import java.awt.event.KeyEvent;
 @Getter
 public class Game {
 
+    /**
+     * The phases of a round, saved with the game so a resumed game shows the same screen.
+     */
+    public enum Phase {
+        NOT_STARTED,
+        PLAYER_TURN,
+        ROUND_OVER
+    }
+
+    /**
+     * The interval of the periodic background save, in milliseconds.
+     */
+    private static final int SAVE_INTERVAL = 30_000;
+
     // Variables
     private View view;
-    private Deck deck, discarded;
+    private Deck deck;
+    private RoundEngine engine;
     private Player player;
     private Dealer dealer;
-    private int wins, losses, pushes;
+    private Scoreboard scoreboard;
+    // The rounds of this game only, which are saved with it; the scoreboard may be shared with other games
+    private final Scoreboard score = new Scoreboard();
+    private Rules rules;
+    private StatsStore stats;
+    private RoundEventStream events;
+    private OddsTracker odds;
+    private SnapshotStore snapshots;
+    private ShuffleAudit audit;
+    private Phase phase;
+    private int autoAdvanceDelay;
+    // Deals the next round when auto-advance is on, see setAutoAdvance()
+    private final Timer advance = new Timer(0, e -> {
+        if (phase == Phase.ROUND_OVER) {
+            dealCards();
+        }
+    });
 
     /**
-     * Constructs a new Game object with the specified player name.
-     * Initializes the player, dealer, deck, discarded deck, and the game view.
-     * Registers keyboard shortcuts and starts the game.
+     * Constructs a new Game object with the specified player name, played with the default rules.
      *
      * @param userName the name of the player.
      */
     public Game(String userName) {
-        wins = 0; losses = 0; pushes = 0;
+        this(userName, Rules.DEFAULT);
+    }
+
+    /**
+     * Constructs a new Game object with the specified player name and rules, keeping its own score.
+     *
+     * @param userName the name of the player.
+     * @param rules the rules of the table.
+     */
+    public Game(String userName, Rules rules) {
+        this(userName, rules, new Scoreboard());
+    }
+
+    /**
+     * Constructs a new Game object with the specified player name and rules, reporting into the given scoreboard.
+     * Initializes the player, dealer, deck, and the game view.
+     * Registers keyboard shortcuts and resumes the player's saved game, or starts a new one.
+     *
+     * @param userName the name of the player.
+     * @param rules the rules of the table.
+     * @param scoreboard the scoreboard the rounds are recorded in, possibly shared with other games.
+     *                   Only the rounds of this game are saved with it.
+     */
+    public Game(String userName, Rules rules, Scoreboard scoreboard) {
+        this.scoreboard = scoreboard;
+        this.rules = rules;
+        advance.setRepeats(false);
+        events = new RoundEventStream();
+        odds = new OddsTracker(rules.dealerHitsSoft17());
         player = new Player(userName);
         dealer = new Dealer();
-        deck = new Deck(true);
-        discarded = new Deck();
-        view = new View(this, player, deck, discarded);
+        deck = new Deck(rules.decks(), rules.certifiedShuffle() ? new CertifiedShuffler() : null);
+        audit = ShuffleAudit.open(userName);
+        // In the certified mode every reshuffle reveals the played order and commits to the new one before it is dealt
+        engine = new RoundEngine(rules, deck, player, dealer, new RoundEngine.ShuffleListener() {
+            @Override
+            public void reshuffling(Deck deck) {
+                audit.reveal(deck.getCommitment());
+            }
+
+            @Override
+            public void reshuffled(Deck deck, boolean newShoe) {
+                audit.commit(deck.getCommitment());
+                view.showNotice(newShoe ? "New shoe" : "Shoe reshuffled");
+            }
+        });
+
+        // Lifetime statistics of the player; the game goes on without them if they cannot be opened
+        try {
+            stats = StatsStore.open(userName);
+        } catch (IOException e) {
+            System.err.println("Lifetime statistics are disabled: " + e.getMessage());
+        }
+        view = new View(this, player, deck);
 
         registerKeyBindings(view);
 
-        deck.shuffle();
-        startGame();
+        snapshots = SnapshotStore.open(userName);
+        if (!resume(snapshots.load())) {
+            deck.shuffle();
+            audit.commit(deck.getCommitment());
+            startGame();
+        }
+
+        // The next shoes are shuffled in the background, continuing the shuffles of the deck
+        engine.startShoes();
+
+        // Save the game periodically: the snapshot is taken on the Swing thread and written in the background
+        new Timer(SAVE_INTERVAL, e -> {
+            snapshots.saveInBackground(snapshot());
+            snapshots.exportInBackground(score);
+        }).start();
     }
 
     /**
      * Starts the game by setting up the start buttons on the view.
      */
     public void startGame() {
+        phase = Phase.NOT_STARTED;
         view.setStartButtons();
     }
 
     /**
      * Deals two cards each to the player and the dealer.
-     * If cards have already been dealt in previous rounds, they are discarded to the discard deck.
-     * Handles the scenario when the deck runs low and needs to be reloaded.
+     * If cards have already been dealt in previous rounds, they are discarded to the deck's discard pile
+     * and the result of the previous round is hidden.
+     * When the deck runs low, it is swapped for a shoe shuffled in the background ({@link RoundEngine#deal()}).
      * If the deck is empty, it shows an error message and exits the application.
      */
     public void dealCards() {
-        // If this is not the first game, we discard the cards to the discard deck.
-        if (wins > 0 || losses > 0 || pushes > 0) {
-            dealer.getHand().discardHandToDeck(discarded);
-            player.getHand().discardHandToDeck(discarded);
-        }
-
-        // Checking if the deck has at least 4 cards
-        if (deck.cardsLeft() < 4) {
-            deck.reloadDeckFromDiscard(discarded);
-        }
-
-        view.updateFirstDealerHand();
+        advance.stop();
+        view.clearResult();
 
         // Handling a potential exception
         try {
-            // The dealer draws two cards
-            dealer.getHand().takeCardFromDeck(deck);
-            dealer.getHand().takeCardFromDeck(deck);
-
-            // The player draws two cards
-            player.getHand().takeCardFromDeck(deck);
-            player.getHand().takeCardFromDeck(deck);
-
+            engine.deal();
         } catch (Deck.EmptyDeckException e) {
-            view.showResultWindow("Cannot deal cards. The deck is empty!");
+            // Modal, as the application exits right after
+            JOptionPane.showMessageDialog(null, "Cannot deal cards. The deck is empty!");
             System.exit(0);
         }
+        view.updateFirstDealerHand();
+
+        // Publish the cards dealt face up, in the order they were dealt; the hole card only when the dealer reveals it
+        events.publish(RoundEvent.cardDealt(dealer.getHand().getCard(0), true));
+        events.publish(RoundEvent.cardDealt(player.getHand().getCard(0), false));
+        events.publish(RoundEvent.cardDealt(player.getHand().getCard(1), false));
 
         // View Player and Dealer Cards
         view.printPlayerHand(player);
@@ -102,24 +192,62 @@ public class Game {
      * Initiates the player's turn by displaying the appropriate buttons and hand value.
      */
     public void playerTurn() {
+        phase = Phase.PLAYER_TURN;
+
         // Show only exit, hit, stand buttons
         view.setPlayerTurnButtons();
 
         // Show value of player first hand
         view.getPlayerHandValue().setText("Player's hand value: " + player.getHand().calculateValue());
+        updateOdds();
+    }
+
+    /**
+     * Handles the player's hit: the player takes a card, the screen is updated and the game checks for a bust.
+     */
+    public void hit() {
+        Card card = engine.hit();
+        events.publish(RoundEvent.action(Action.HIT));
+        events.publish(RoundEvent.cardDealt(card, false));
+
+        view.updatePlayerScreen(player, this);
+        checkPlayerBusts();
+        view.updateScore(this);
+        if (phase == Phase.PLAYER_TURN) {
+            updateOdds();
+        }
+    }
+
+    /**
+     * Requests the odds of the player's decision for the cards not seen yet: the shoe and the dealer's hole card.
+     * The odds are computed in the background and shown when ready.
+     */
+    private void updateOdds() {
+        int[] unseen = new int[10];
+        for (Card card : deck.getDeck()) {
+            unseen[card.getValue() - 2]++;
+        }
+        unseen[dealer.getHand().getCard(1).getValue() - 2]++;
+        odds.request(unseen, player.getHand().packedTotal(), dealer.getHand().getCard(0).getValue(), view::showOdds);
     }
 
     /**
-     * Handles the dealer's turn, where the dealer hits until the hand value is at least 17.
+     * Handles the dealer's turn, where the dealer hits until the hand value is at least 17
+     * (and on a soft 17 under H17 rules), as decided by the precomputed dealer table of the rules.
      * After the dealer finishes, the game checks for the winner and updates the score.
      */
     public void dealerTurn() {
+        events.publish(RoundEvent.action(Action.STAND));
+        odds.cancel();
+        view.clearOdds();
+
         // Update score, print hand, and show new hand value
         view.updateDealerScreen(dealer, this);
+        events.publish(RoundEvent.holeCard(dealer.getHand().getCard(1)));
 
         // Dealer hits until get value 17
-        while (dealer.getHand().calculateValue() < 17) {
-            dealer.hit(deck, discarded);
+        while (engine.dealerDraws()) {
+            events.publish(RoundEvent.dealerDraw(engine.dealerHit()));
             view.updateDealerScreen(dealer, this);
         }
         checkWins();
@@ -131,8 +259,113 @@ public class Game {
      * Ends the current game round and sets the appropriate end-game buttons.
      */
     public void endGame() {
+        phase = Phase.ROUND_OVER;
+        odds.cancel();
+        view.clearOdds();
+
         // Make next round and exit button only visible
         view.setEndGameButtons();
+
+        // Deal the next round by itself after the delay, unless the player does it first
+        if (autoAdvanceDelay > 0) {
+            advance.setInitialDelay(autoAdvanceDelay);
+            advance.restart();
+        }
+    }
+
+    /**
+     * Turns auto-advance on or off: with it on, the next round is dealt by itself some time after a round ends.
+     *
+     * @param delay the time the result of a round is shown before the next round is dealt, in milliseconds,
+     *              or 0 to wait for the player
+     */
+    public void setAutoAdvance(int delay) {
+        autoAdvanceDelay = Math.max(0, delay);
+        if (autoAdvanceDelay == 0) {
+            advance.stop();
+        } else if (phase == Phase.ROUND_OVER) {
+            advance.setInitialDelay(autoAdvanceDelay);
+            advance.restart();
+        }
+    }
+
+    /**
+     * Saves the game and exits the application.
+     */
+    public void exit() {
+        snapshots.save(snapshot());
+        System.exit(0);
+    }
+
+    /**
+     * Captures the complete state of the game.
+     * In the certified mode the order of the shoe is left out, as it must stay unpredictable until it is revealed,
+     * and a resumed game shuffles a new one ({@link #resume(GameSnapshot)}).
+     *
+     * @return the snapshot of the game
+     */
+    public GameSnapshot snapshot() {
+        boolean certified = rules.certifiedShuffle();
+        return new GameSnapshot(rules.toString(), phase, score.snapshot(), deck.getSeed(), deck.getShuffles(),
+                deck.getReloads(), certified ? List.of() : deck.cards(), certified ? List.of() : deck.discarded(),
+                player.getHand().cards(), dealer.getHand().cards());
+    }
+
+    /**
+     * Restores a saved game played with the same rules and shows it as it was left.
+     *
+     * @param snapshot the saved game, or null
+     * @return true if the game was resumed, false if a new game has to be started
+     */
+    private boolean resume(GameSnapshot snapshot) {
+        if (snapshot == null || !snapshot.rulesId().equals(rules.toString())) {
+            return false;
+        }
+        // A corrupt save could hold more cards than the shoe; it starts a new game
+        int saved = snapshot.deck().size() + snapshot.discarded().size() + snapshot.playerHand().size()
+                + snapshot.dealerHand().size();
+        if (saved > rules.decks() * 52) {
+            System.err.println("Cannot resume saved game: it holds " + saved + " cards, more than the shoe");
+            return false;
+        }
+
+        // Restore the model
+        score.add(snapshot.score());
+        scoreboard.add(snapshot.score());
+        snapshot.playerHand().forEach(player.getHand()::addCard);
+        snapshot.dealerHand().forEach(dealer.getHand()::addCard);
+        if (rules.certifiedShuffle()) {
+            // The order of the shoe was not saved: shuffle the cards not in the hands and commit to the new order
+            List<Card> cards = new Deck(rules.decks()).cards();
+            player.getHand().cards().forEach(cards::remove);
+            dealer.getHand().cards().forEach(cards::remove);
+            deck.restore(cards, snapshot.seed(), snapshot.shuffles());
+            deck.shuffle();
+            audit.commit(deck.getCommitment());
+        } else {
+            deck.restore(snapshot.deck(), snapshot.discarded(), snapshot.seed(), snapshot.shuffles(),
+                    snapshot.reloads());
+        }
+
+        // Show the screen of the saved phase
+        view.updateScore(this);
+        switch (snapshot.phase()) {
+            case NOT_STARTED -> startGame();
+            case PLAYER_TURN -> {
+                view.initializeCards();
+                view.updateFirstDealerHand();
+                view.printPlayerHand(player);
+                view.printDealerFirstHand(dealer);
+                playerTurn();
+            }
+            case ROUND_OVER -> {
+                view.initializeCards();
+                view.updatePlayerScreen(player, this);
+                view.updateDealerScreen(dealer, this);
+                endGame();
+            }
+        }
+        return true;
     }
 
     /**
@@ -208,7 +441,7 @@ public class Game {
         view.getExitButton().getActionMap().put("exit", new AbstractAction() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                System.exit(0);
+                exit();
             }
         });
     }
@@ -218,11 +451,11 @@ public class Game {
      * If the player busts, the game ends, and the score is updated.
      */
     public void checkPlayerBusts() {
-        if (player.getHand().calculateValue() > 21) {
+        if (engine.playerBusts()) {
             // Show window message "You Bust"
-            view.showResultWindow("You bust!");
+            view.showResultWindow(Outcome.PLAYER_BUST.getMessage());
             // Update score
-            losses++;
+            settleRound(Outcome.PLAYER_BUST);
 
             endGame();
         }
@@ -230,6 +463,7 @@ public class Game {
 
     /**
      * Checks the winner of the game based on the value of the dealer's and player's hands.
+     * The outcome is looked up in the precomputed settlement table of the rules.
      * Updates the score and displays the result in a window.
      */
     public void checkWins() {
@@ -237,24 +471,24 @@ public class Game {
         view.getDealerHandValue().setText("Dealer's hand value: " + dealer.getHand().calculateValue());
 
         // Check who wins and display the result in window
-        if (player.getHand().calculateValue() == 21 && dealer.getHand().calculateValue() != 21) {
-            view.showResultWindow("Blackjack!!!");
-            wins++;
-        } else if (dealer.getHand().calculateValue() == 21 && player.getHand().calculateValue() != 21) {
-            view.showResultWindow("Dealer has blackjack.");
-            losses++;
-        } else if (dealer.getHand().calculateValue() > 21) {
-            view.showResultWindow("Dealer Busts! You win!");
-            wins++;
-        } else if (dealer.getHand().calculateValue() > player.getHand().calculateValue()) {
-            view.showResultWindow("Dealer wins - Higher hand");
-            losses++;
-        } else if (player.getHand().calculateValue() > dealer.getHand().calculateValue()) {
-            view.showResultWindow("You win - Higher hand");
-            wins++;
-        } else {
-            view.showResultWindow("Equal Value Hands - Push");
-            pushes++;
+        Outcome outcome = engine.settle();
+        view.showResultWindow(outcome.getMessage());
+        settleRound(outcome);
+    }
+
+    /**
+     * Records the outcome of the round on the scoreboard, publishes it and records it in the player's lifetime statistics.
+     *
+     * @param outcome the outcome of the round
+     */
+    private void settleRound(Outcome outcome) {
+        int upcard = engine.upcard();
+        double payout = engine.payout(outcome);
+        score.record(outcome, upcard, payout);
+        scoreboard.record(outcome, upcard, payout);
+        events.publish(RoundEvent.settled(outcome));
+        if (stats != null) {
+            stats.record(outcome, upcard, payout);
         }
     }
 }
@@ -0,0 +1,71 @@
+package controller;
+
+import strategy.LiveOdds;
+
+import javax.swing.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Computes the live odds of the player's decisions off the Swing thread.
+ * Requests are handled in order by a single worker thread that owns the {@link LiveOdds} calculator,
+ * so its memo tables carry over from one decision to the next in the same shoe.
+ * Every request takes a new generation number; a result is only delivered (on the Swing thread)
+ * if no newer request or cancellation came in meanwhile, so stale odds are never shown.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public class OddsTracker {
+
+    // Variables
+    private final LiveOdds odds;
+    private final AtomicLong generation = new AtomicLong();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "odds-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Constructs the tracker for a dealer policy.
+     *
+     * @param hitSoft17 whether the dealer hits a soft 17
+     */
+    public OddsTracker(boolean hitSoft17) {
+        odds = new LiveOdds(hitSoft17);
+    }
+
+    /**
+     * Requests the odds of a decision and returns immediately.
+     *
+     * @param unseen the number of unseen cards of each value (the shoe and the hole card), indexed by card value minus 2
+     * @param playerTotal the packed total of the player's hand
+     * @param upcard the value of the dealer's upcard (2-11)
+     * @param listener called on the Swing thread with the odds, unless the request was superseded
+     */
+    public void request(int[] unseen, int playerTotal, int upcard, Consumer<LiveOdds.Odds> listener) {
+        long ticket = generation.incrementAndGet();
+        worker.execute(() -> {
+            // Skip requests superseded before they started
+            if (generation.get() != ticket) {
+                return;
+            }
+            LiveOdds.Odds result = odds.compute(unseen, playerTotal, upcard);
+            SwingUtilities.invokeLater(() -> {
+                if (generation.get() == ticket) {
+                    listener.accept(result);
+                }
+            });
+        });
+    }
+
+    /**
+     * Discards the results of all pending requests.
+     */
+    public void cancel() {
+        generation.incrementAndGet();
+    }
+}
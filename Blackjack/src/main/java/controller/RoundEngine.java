@@ -0,0 +1,222 @@
+package controller;
+
+import lombok.Getter;
+import model.*;
+import strategy.RuleTables;
+
+/**
+ * The flow of a round of the game without a screen: the deal, the player's hits and bust, the dealer's draws and the
+ * settlement, together with every shuffle of the shoe after the first.
+ * {@link Game} drives it from the buttons and shows every step; the replay regression drives it with a fixed policy,
+ * so both play the same rounds from the same shoe.
+ * <p>
+ * At the cut card the deck is swapped for the next shoe of a {@link ShoeSupplier}, and a deck that runs out in the
+ * middle of a round is reloaded from its discard pile. Both reshuffles are reported to a {@link ShuffleListener}
+ * before and after they happen, e.g. for the audit log of the certified mode.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+@Getter
+public class RoundEngine implements AutoCloseable {
+
+    // Variables
+    private final Rules rules;
+    private final RuleTables tables;
+    private final Deck deck;
+    private final Player player;
+    private final Dealer dealer;
+    private final ShuffleListener listener;
+    private ShoeSupplier shoes;
+
+    /**
+     * Constructs the engine of a table. The deck has to be shuffled or restored, and then {@link #startShoes()} called,
+     * before the first round is dealt.
+     *
+     * @param rules the rules of the table
+     * @param deck the shoe of the table
+     * @param player the player
+     * @param dealer the dealer
+     * @param listener told about every reshuffle of the shoe
+     */
+    public RoundEngine(Rules rules, Deck deck, Player player, Dealer dealer, ShuffleListener listener) {
+        this.rules = rules;
+        this.tables = RuleTables.of(rules);
+        this.deck = deck;
+        this.player = player;
+        this.dealer = dealer;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts shuffling the next shoes in the background, continuing the shuffles of the deck.
+     */
+    public void startShoes() {
+        shoes = new ShoeSupplier(rules.decks(), deck.getSeed(), deck.getShuffles(), rules.certifiedShuffle());
+    }
+
+    /**
+     * Deals two cards each to the dealer and then the player.
+     * The cards of the previous round are discarded first, and when the deck runs low it is swapped for the next shoe.
+     *
+     * @throws Deck.EmptyDeckException if the deck runs out of cards, which the reshuffle threshold prevents
+     */
+    public void deal() throws Deck.EmptyDeckException {
+        // If this is not the first round, the cards go to the discard pile
+        if (player.getHand().getHandSize() > 0) {
+            dealer.getHand().discardHandToDeck(deck);
+            player.getHand().discardHandToDeck(deck);
+        }
+
+        // Checking if the shoe has reached the reshuffle point (always at least 4 cards)
+        if (deck.cardsLeft() < rules.reshuffleThreshold()) {
+            reshuffle(true);
+        }
+
+        dealer.getHand().takeCardFromDeck(deck);
+        dealer.getHand().takeCardFromDeck(deck);
+        player.getHand().takeCardFromDeck(deck);
+        player.getHand().takeCardFromDeck(deck);
+    }
+
+    /**
+     * The player takes a card, after the deck is reloaded if it has run out.
+     *
+     * @return the card taken
+     */
+    public Card hit() {
+        reloadIfEmpty();
+        player.hit(deck);
+        return player.getHand().getCard(player.getHand().getHandSize() - 1);
+    }
+
+    /**
+     * Checks if the player has bust (hand value exceeds 21).
+     *
+     * @return true if the player's hand is over 21
+     */
+    public boolean playerBusts() {
+        return player.getHand().calculateValue() > 21;
+    }
+
+    /**
+     * Checks if the dealer draws another card, as decided by the precomputed dealer table of the rules.
+     *
+     * @return true if the dealer hits
+     */
+    public boolean dealerDraws() {
+        return tables.dealerDraws(dealer.getHand().packedTotal());
+    }
+
+    /**
+     * The dealer takes a card, after the deck is reloaded if it has run out.
+     *
+     * @return the card taken
+     */
+    public Card dealerHit() {
+        reloadIfEmpty();
+        dealer.hit(deck);
+        return dealer.getHand().getCard(dealer.getHand().getHandSize() - 1);
+    }
+
+    /**
+     * Settles a round the player stood in, by the precomputed settlement table of the rules.
+     *
+     * @return the outcome of the round
+     */
+    public Outcome settle() {
+        return tables.settle(player.getHand().calculateValue(), dealer.getHand().calculateValue());
+    }
+
+    /**
+     * Returns what the player is paid for an outcome of the current round, in units of the bet.
+     *
+     * @param outcome the outcome of the round
+     * @return the payout, negative for a loss
+     */
+    public double payout(Outcome outcome) {
+        boolean natural = player.getHand().getHandSize() == 2 && player.getHand().calculateValue() == 21;
+        return tables.payout(outcome, natural);
+    }
+
+    /**
+     * Returns the value of the dealer's upcard.
+     *
+     * @return the value of the dealer's first card (2-11)
+     */
+    public int upcard() {
+        return dealer.getHand().getCard(0).getValue();
+    }
+
+    /**
+     * Stops shuffling shoes in the background.
+     */
+    @Override
+    public void close() {
+        if (shoes != null) {
+            shoes.close();
+        }
+    }
+
+    /**
+     * Reshuffles the shoe. At the cut card the deck is swapped for the next shoe of the supplier, and the played shoe
+     * is handed back to it; every card must then be back in the deck or on its discard pile. In the middle of a round
+     * the deck is reloaded from its discard pile instead.
+     *
+     * @param newShoe true to swap in the next shoe at the cut card, false to reload the deck from its discard pile
+     */
+    private void reshuffle(boolean newShoe) {
+        listener.reshuffling(deck);
+        if (newShoe) {
+            try {
+                shoes.recycle(deck.swap(shoes.take()));
+            } catch (InterruptedException e) {
+                // Shuffle here instead
+                Thread.currentThread().interrupt();
+                deck.reloadDeckFromDiscard();
+            }
+        } else {
+            deck.reloadDeckFromDiscard();
+        }
+        listener.reshuffled(deck, newShoe);
+    }
+
+    /**
+     * Reloads the deck from its discard pile when it has run out in the middle of a round, before the next card
+     * is drawn, so the reload is reported like any other shuffle.
+     */
+    private void reloadIfEmpty() {
+        if (!deck.hasCards()) {
+            reshuffle(false);
+        }
+    }
+
+    /**
+     * Told about every reshuffle of the shoe of an engine, before its first card is dealt.
+     */
+    public interface ShuffleListener {
+
+        /**
+         * A listener doing nothing.
+         */
+        ShuffleListener NONE = new ShuffleListener() {
+        };
+
+        /**
+         * Called before the shoe is reshuffled, while the deck still holds the played order.
+         *
+         * @param deck the deck
+         */
+        default void reshuffling(Deck deck) {
+        }
+
+        /**
+         * Called once the shoe is reshuffled.
+         *
+         * @param deck the deck, holding the new order
+         * @param newShoe true if the deck was swapped for the next shoe, false if it was reloaded from its discard pile
+         */
+        default void reshuffled(Deck deck, boolean newShoe) {
+        }
+    }
+}
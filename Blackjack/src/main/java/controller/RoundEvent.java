@@ -0,0 +1,114 @@
+package controller;
+
+import model.Card;
+import model.Outcome;
+import model.Rank;
+import model.Suit;
+import strategy.Action;
+
+/**
+ * An event of a round, published on the {@link RoundEventStream}.
+ * Events are flyweights: every possible event is created once, up front, and looked up by the
+ * static factories, so publishing never allocates and the same instance can be shared by any number of subscribers.
+ *
+ * @param type the kind of event
+ * @param toDealer for dealt cards, whether the card went to the dealer
+ * @param card the card dealt or drawn, or null
+ * @param action the player's action, or null
+ * @param outcome the outcome of the settled round, or null
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public record RoundEvent(Type type, boolean toDealer, Card card, Action action, Outcome outcome) {
+
+    /**
+     * The kinds of round events.
+     */
+    public enum Type {
+        CARD_DEALT,
+        ACTION,
+        HOLE_CARD,
+        DEALER_DRAW,
+        SETTLED
+    }
+
+    private static final int CARDS = Suit.values().length * Rank.values().length;
+    private static final RoundEvent[] DEALT_TO_PLAYER = new RoundEvent[CARDS];
+    private static final RoundEvent[] DEALT_TO_DEALER = new RoundEvent[CARDS];
+    private static final RoundEvent[] HOLE_CARDS = new RoundEvent[CARDS];
+    private static final RoundEvent[] DEALER_DRAWS = new RoundEvent[CARDS];
+    private static final RoundEvent[] ACTIONS = new RoundEvent[Action.values().length];
+    private static final RoundEvent[] SETTLED = new RoundEvent[Outcome.values().length];
+
+    static {
+        for (Suit suit : Suit.values()) {
+            for (Rank rank : Rank.values()) {
+                Card card = new Card(suit, rank);
+                DEALT_TO_PLAYER[card.index()] = new RoundEvent(Type.CARD_DEALT, false, card, null, null);
+                DEALT_TO_DEALER[card.index()] = new RoundEvent(Type.CARD_DEALT, true, card, null, null);
+                HOLE_CARDS[card.index()] = new RoundEvent(Type.HOLE_CARD, true, card, null, null);
+                DEALER_DRAWS[card.index()] = new RoundEvent(Type.DEALER_DRAW, true, card, null, null);
+            }
+        }
+        for (Action action : Action.values()) {
+            ACTIONS[action.ordinal()] = new RoundEvent(Type.ACTION, false, null, action, null);
+        }
+        for (Outcome outcome : Outcome.values()) {
+            SETTLED[outcome.ordinal()] = new RoundEvent(Type.SETTLED, false, null, null, outcome);
+        }
+    }
+
+    /**
+     * Returns the event of a card dealt face up at the start of a round or on a player hit.
+     * The dealer's hole card is not published when dealt, only when revealed ({@link #holeCard(Card)}).
+     *
+     * @param card the card dealt
+     * @param toDealer whether the card went to the dealer
+     * @return the event
+     */
+    public static RoundEvent cardDealt(Card card, boolean toDealer) {
+        return (toDealer ? DEALT_TO_DEALER : DEALT_TO_PLAYER)[card.index()];
+    }
+
+    /**
+     * Returns the event of a player action.
+     *
+     * @param action the action taken
+     * @return the event
+     */
+    public static RoundEvent action(Action action) {
+        return ACTIONS[action.ordinal()];
+    }
+
+    /**
+     * Returns the event of the dealer's hole card turned up at the start of the dealer's turn.
+     * It is never published for a round the player busts, as the hole card is not shown then.
+     *
+     * @param card the hole card
+     * @return the event
+     */
+    public static RoundEvent holeCard(Card card) {
+        return HOLE_CARDS[card.index()];
+    }
+
+    /**
+     * Returns the event of a card drawn by the dealer during the dealer's turn.
+     *
+     * @param card the card drawn
+     * @return the event
+     */
+    public static RoundEvent dealerDraw(Card card) {
+        return DEALER_DRAWS[card.index()];
+    }
+
+    /**
+     * Returns the event of a settled round.
+     *
+     * @param outcome the outcome of the round
+     * @return the event
+     */
+    public static RoundEvent settled(Outcome outcome) {
+        return SETTLED[outcome.ordinal()];
+    }
+}
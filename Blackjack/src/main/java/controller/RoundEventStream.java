@@ -0,0 +1,82 @@
+package controller;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+
+/**
+ * Publish/subscribe stream of round events, built on {@link java.util.concurrent.Flow}.
+ * Every subscriber gets its own bounded buffer and is served on a background thread according to its demand.
+ * Publishing never waits: when a slow subscriber's buffer is full, the event is dropped for that subscriber
+ * only (and counted), so observers such as a statistics panel or a journal writer can never stall the game.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public class RoundEventStream implements AutoCloseable {
+
+    /**
+     * The number of events buffered per subscriber.
+     */
+    public static final int BUFFER_CAPACITY = 256;
+
+    // Variables
+    private final SubmissionPublisher<RoundEvent> publisher = new SubmissionPublisher<>(
+            ForkJoinPool.commonPool(), BUFFER_CAPACITY);
+    private final LongAdder dropped = new LongAdder();
+    private final BiPredicate<Flow.Subscriber<? super RoundEvent>, RoundEvent> onDrop = (subscriber, event) -> {
+        dropped.increment();
+        return false;
+    };
+
+    /**
+     * Publishes an event to every subscriber without blocking.
+     *
+     * @param event the event to publish
+     */
+    public void publish(RoundEvent event) {
+        if (publisher.hasSubscribers()) {
+            publisher.offer(event, onDrop);
+        }
+    }
+
+    /**
+     * Subscribes a Flow subscriber, which controls its demand through its subscription.
+     *
+     * @param subscriber the subscriber
+     */
+    public void subscribe(Flow.Subscriber<? super RoundEvent> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Subscribes a consumer called for every event, on a background thread.
+     *
+     * @param consumer the consumer of the events
+     * @return a future completed when the stream is closed
+     */
+    public CompletableFuture<Void> subscribe(Consumer<? super RoundEvent> consumer) {
+        return publisher.consume(consumer);
+    }
+
+    /**
+     * Returns the number of events dropped because a subscriber's buffer was full.
+     *
+     * @return the number of dropped events
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Completes the stream for every subscriber.
+     */
+    @Override
+    public void close() {
+        publisher.close();
+    }
+}
@@ -0,0 +1,249 @@
+package controller;
+
+import model.Outcome;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Score of any number of games or threads reporting rounds at once: wins, losses and pushes, the net result in units,
+ * and how often every outcome happened against every dealer upcard.
+ * <p>
+ * Like {@link java.util.concurrent.atomic.LongAdder}, the counters are striped: a thread records into the stripe
+ * picked by its id and moves to another stripe when that one is busy, so threads rarely touch the same counters.
+ * A stripe is padded so it does not share cache lines with its neighbours, and is guarded by a sequence number:
+ * odd while a round is being recorded, even otherwise. {@link #snapshot()} reads every stripe at an even sequence
+ * that did not change while it was read, so a round is either completely in a snapshot or not at all:
+ * the totals, the outcome matrix and the units always describe the same rounds.
+ * The units are counted in millionths, so payouts such as the 1.2 of a 6:5 natural add up exactly.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public class Scoreboard {
+
+    /**
+     * The number of dealer upcards, 2 to 11 (Ace).
+     */
+    public static final int UPCARDS = 10;
+
+    private static final Outcome[] OUTCOMES = Outcome.values();
+    // Fixed point of the units
+    private static final double MICROS = 1_000_000;
+
+    // Layout of a stripe: padding, sequence, totals, net result in millionths of a unit, outcomes per upcard, padding
+    private static final int PADDING = 16;
+    private static final int SEQUENCE = PADDING, WINS = SEQUENCE + 1, LOSSES = WINS + 1, PUSHES = LOSSES + 1;
+    private static final int MICRO_UNITS = PUSHES + 1, MATRIX = MICRO_UNITS + 1;
+    private static final int END = MATRIX + UPCARDS * OUTCOMES.length, STRIPE_SIZE = END + PADDING;
+
+    // Variables
+    private final AtomicLongArray[] stripes;
+
+    /**
+     * Constructs an empty scoreboard with a stripe per processor.
+     */
+    public Scoreboard() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        stripes = new AtomicLongArray[processors <= 1 ? 1 : Integer.highestOneBit(processors - 1) << 1];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new AtomicLongArray(STRIPE_SIZE);
+        }
+    }
+
+    /**
+     * Records the result of a round. Safe to call from any thread.
+     *
+     * @param outcome the outcome of the round
+     * @param upcard the value of the dealer's upcard (2-11)
+     * @param payout the units won (positive) or lost (negative) in the round, kept to a millionth of a unit
+     */
+    public void record(Outcome outcome, int upcard, double payout) {
+        AtomicLongArray stripe = lock();
+        int total = switch (outcome.getResult()) {
+            case 1 -> WINS;
+            case -1 -> LOSSES;
+            default -> PUSHES;
+        };
+        increment(stripe, total, 1);
+        increment(stripe, MICRO_UNITS, Math.round(payout * MICROS));
+        increment(stripe, MATRIX + (upcard - 2) * OUTCOMES.length + outcome.ordinal(), 1);
+        unlock(stripe);
+    }
+
+    /**
+     * Adds the rounds of a snapshot, such as the score of a resumed game: the totals, the units and the outcomes
+     * per upcard together, so they keep describing the same rounds.
+     *
+     * @param score the snapshot to add
+     */
+    public void add(Snapshot score) {
+        AtomicLongArray stripe = lock();
+        increment(stripe, WINS, score.wins());
+        increment(stripe, LOSSES, score.losses());
+        increment(stripe, PUSHES, score.pushes());
+        increment(stripe, MICRO_UNITS, Math.round(score.units() * MICROS));
+        for (int upcard = 0; upcard < UPCARDS; upcard++) {
+            for (int outcome = 0; outcome < OUTCOMES.length; outcome++) {
+                increment(stripe, MATRIX + upcard * OUTCOMES.length + outcome, score.outcomes()[upcard][outcome]);
+            }
+        }
+        unlock(stripe);
+    }
+
+    /**
+     * Reads a consistent copy of the score.
+     *
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        long[] sums = new long[END];
+        long[] copy = new long[END];
+        for (AtomicLongArray stripe : stripes) {
+            while (true) {
+                long sequence = stripe.getAcquire(SEQUENCE);
+                if ((sequence & 1) == 0) {
+                    for (int i = WINS; i < END; i++) {
+                        copy[i] = stripe.getOpaque(i);
+                    }
+                    VarHandle.acquireFence();
+                    if (stripe.getOpaque(SEQUENCE) == sequence) {
+                        break;
+                    }
+                }
+                Thread.onSpinWait();
+            }
+            for (int i = WINS; i < END; i++) {
+                sums[i] += copy[i];
+            }
+        }
+
+        long[][] outcomes = new long[UPCARDS][OUTCOMES.length];
+        for (int upcard = 0; upcard < UPCARDS; upcard++) {
+            System.arraycopy(sums, MATRIX + upcard * OUTCOMES.length, outcomes[upcard], 0, OUTCOMES.length);
+        }
+        return new Snapshot(sums[WINS], sums[LOSSES], sums[PUSHES], sums[MICRO_UNITS] / MICROS, outcomes);
+    }
+
+    /**
+     * Writes a snapshot as CSV to a temporary file and moves it over the given file,
+     * so readers of the export never see it half written.
+     *
+     * @param file the file to export to
+     * @throws IOException if the file cannot be written
+     */
+    public void export(Path file) throws IOException {
+        Snapshot snapshot = snapshot();
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temporary)) {
+            snapshot.writeCsv(out);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Takes a free stripe, starting from the one of the current thread, by making its sequence odd.
+     *
+     * @return the stripe, to be released with {@link #unlock(AtomicLongArray)}
+     */
+    private AtomicLongArray lock() {
+        long id = Thread.currentThread().threadId();
+        int index = (int) (id ^ id >>> 32) * 0x9E3779B9 >>> 16;
+        while (true) {
+            AtomicLongArray stripe = stripes[index & (stripes.length - 1)];
+            long sequence = stripe.getOpaque(SEQUENCE);
+            if ((sequence & 1) == 0 && stripe.compareAndExchange(SEQUENCE, sequence, sequence + 1) == sequence) {
+                return stripe;
+            }
+            // Busy: try another stripe
+            index = ThreadLocalRandom.current().nextInt();
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Releases a stripe taken with {@link #lock()}, publishing its counters.
+     *
+     * @param stripe the stripe
+     */
+    private static void unlock(AtomicLongArray stripe) {
+        stripe.setRelease(SEQUENCE, stripe.getPlain(SEQUENCE) + 1);
+    }
+
+    /**
+     * Adds to a counter of a stripe held by the current thread.
+     *
+     * @param stripe the stripe
+     * @param index the counter
+     * @param delta the amount to add
+     */
+    private static void increment(AtomicLongArray stripe, int index, long delta) {
+        stripe.setOpaque(index, stripe.getPlain(index) + delta);
+    }
+
+    /**
+     * A consistent copy of a scoreboard.
+     *
+     * @param wins the number of rounds won
+     * @param losses the number of rounds lost
+     * @param pushes the number of rounds pushed
+     * @param units the net result in units
+     * @param outcomes the number of rounds per upcard (index 0 for a 2) and outcome ordinal; not to be modified
+     */
+    public record Snapshot(long wins, long losses, long pushes, double units, long[][] outcomes) {
+
+        /**
+         * Returns the number of rounds.
+         *
+         * @return the wins, losses and pushes together
+         */
+        public long rounds() {
+            return wins + losses + pushes;
+        }
+
+        /**
+         * Returns how often an outcome happened against an upcard.
+         *
+         * @param upcard the value of the dealer's upcard (2-11)
+         * @param outcome the outcome
+         * @return the number of rounds
+         */
+        public long count(int upcard, Outcome outcome) {
+            return outcomes[upcard - 2][outcome.ordinal()];
+        }
+
+        /**
+         * Writes the snapshot as CSV: a row per upcard with the count of every outcome, then a row of totals
+         * with the wins, losses, pushes and net units.
+         *
+         * @param out the writer to write to
+         * @throws IOException if writing failed
+         */
+        public void writeCsv(Writer out) throws IOException {
+            out.write("upcard");
+            for (Outcome outcome : OUTCOMES) {
+                out.write("," + outcome);
+            }
+            out.write(System.lineSeparator());
+            for (int upcard = 2; upcard <= 11; upcard++) {
+                out.write(upcard == 11 ? "A" : String.valueOf(upcard));
+                for (long count : outcomes[upcard - 2]) {
+                    out.write("," + count);
+                }
+                out.write(System.lineSeparator());
+            }
+            out.write("wins,losses,pushes,units" + System.lineSeparator());
+            out.write(wins + "," + losses + "," + pushes + "," + units + System.lineSeparator());
+        }
+    }
+}
@@ -23,9 +23,9 @@ public record Card(Suit suit, Rank rank) { // REQ-003: On the model side, extrac
     public static final int CARD_HEIGHT = 145;
 
     /**
-     * The directory where the card images are located.
+     * The classpath directory where the card images are located.
      */
-    public static final String IMAGE_DIR = "img/cards/";
+    public static final String IMAGE_DIR = "/cards/";
 
     /**
      * Returns the value of the card based on its rank.
@@ -35,4 +35,13 @@ public record Card(Suit suit, Rank rank) { // REQ-003: On the model side, extrac
     public int getValue() {
         return rank.getValue();
     }
+
+    /**
+     * Returns the position of the card in a single ordered deck (0-51), suit by suit.
+     *
+     * @return the index of the card
+     */
+    public int index() {
+        return suit.ordinal() * Rank.values().length + rank.ordinal();
+    }
 }
@@ -0,0 +1,223 @@
+package model;
+
+import java.security.DrbgParameters;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Shuffles for the certified shuffle mode ({@link Rules#certifiedShuffle()}): the randomness comes from a
+ * {@link SecureRandom} DRBG instead of a seeded {@link java.util.Random}, so no shoe can be predicted from the ones
+ * before it, and every shuffled order is committed to with a salted SHA-256 hash ({@link Commitment}) that can be
+ * published before the first card is dealt and checked against the revealed order once the shoe is played.
+ * <p>
+ * The DRBG is asked for {@link #BUFFER} bytes at a time and the bounded integers of the shuffle are cut from that
+ * buffer, since a call to the DRBG costs far more than the few bytes a swap needs. A bounded integer is taken with
+ * Lemire's multiply-and-reject method, which is unbiased and almost never draws twice.
+ * <p>
+ * A shuffler is not thread-safe: every thread that shuffles has its own.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public class CertifiedShuffler {
+
+    /**
+     * The number of random bytes fetched from the DRBG at once.
+     */
+    public static final int BUFFER = 8192;
+
+    /**
+     * The number of random bytes salting a commitment, so a committed order cannot be found by hashing candidates.
+     */
+    public static final int SALT = 32;
+
+    // Variables
+    private final SecureRandom random;
+    private final MessageDigest sha256;
+    private final byte[] buffer = new byte[BUFFER];
+    private int position = BUFFER;
+
+    /**
+     * Constructs a shuffler on a DRBG instantiated with 256-bit security and seeded by the system.
+     *
+     * @throws IllegalStateException if the JVM provides no DRBG or SHA-256
+     */
+    public CertifiedShuffler() {
+        try {
+            random = SecureRandom.getInstance("DRBG",
+                    DrbgParameters.instantiation(256, DrbgParameters.Capability.RESEED_ONLY, null));
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("The certified shuffle needs a DRBG and SHA-256", e);
+        }
+    }
+
+    /**
+     * Shuffles cards in place with the swaps of {@link java.util.Collections#shuffle(List, java.util.Random)}
+     * and commits to the result.
+     *
+     * @param cards the cards to shuffle
+     * @return the commitment to the shuffled order
+     */
+    public Commitment shuffle(Card[] cards) {
+        for (int i = cards.length; i > 1; i--) {
+            int j = nextInt(i);
+            Card card = cards[i - 1];
+            cards[i - 1] = cards[j];
+            cards[j] = card;
+        }
+        return commit(Arrays.asList(cards));
+    }
+
+    /**
+     * Returns a uniformly distributed integer in [0, bound).
+     *
+     * @param bound the upper bound, positive
+     * @return the random integer
+     * @throws IllegalArgumentException if the bound is not positive
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("The bound must be positive, got " + bound);
+        }
+        // Lemire: the high half of a 32x32-bit product is uniform once the low halves below 2^32 mod bound are rejected
+        long product = nextUnsignedInt() * bound;
+        if ((product & 0xFFFFFFFFL) < bound) {
+            long threshold = (1L << 32) % bound;
+            while ((product & 0xFFFFFFFFL) < threshold) {
+                product = nextUnsignedInt() * bound;
+            }
+        }
+        return (int) (product >>> 32);
+    }
+
+    /**
+     * Commits to an order of cards with a fresh salt.
+     *
+     * @param order the cards in the order they will be drawn
+     * @return the commitment
+     */
+    public Commitment commit(List<Card> order) {
+        byte[] salt = new byte[SALT];
+        for (int i = 0; i < SALT; i++) {
+            salt[i] = nextByte();
+        }
+        byte[] indices = Commitment.encode(order);
+        return new Commitment(Commitment.digest(sha256, salt, indices), salt, indices);
+    }
+
+    /**
+     * Takes the next four random bytes of the buffer as an unsigned integer.
+     *
+     * @return the integer in [0, 2^32)
+     */
+    private long nextUnsignedInt() {
+        if (position > BUFFER - Integer.BYTES) {
+            refill();
+        }
+        long value = (buffer[position] & 0xFFL) << 24 | (buffer[position + 1] & 0xFFL) << 16
+                | (buffer[position + 2] & 0xFFL) << 8 | buffer[position + 3] & 0xFFL;
+        position += Integer.BYTES;
+        return value;
+    }
+
+    /**
+     * Takes the next random byte of the buffer.
+     *
+     * @return the byte
+     */
+    private byte nextByte() {
+        if (position == BUFFER) {
+            refill();
+        }
+        return buffer[position++];
+    }
+
+    /**
+     * Fetches a whole buffer of random bytes from the DRBG.
+     */
+    private void refill() {
+        random.nextBytes(buffer);
+        position = 0;
+    }
+
+    /**
+     * A commitment to the order of a shoe: the SHA-256 hash of a random salt followed by the index of every card
+     * ({@link Card#index()}) in the order they will be drawn.
+     * The digest is published when the shoe is shuffled; the salt and the order are its opening, revealed once the
+     * shoe is played, and anyone can hash them again ({@link #verify(byte[], byte[], byte[])}).
+     *
+     * @param digest the SHA-256 hash, to be published
+     * @param salt the salt, kept secret until the shoe is played
+     * @param order the index of every card in drawing order, kept secret until the shoe is played
+     */
+    public record Commitment(byte[] digest, byte[] salt, byte[] order) {
+
+        /**
+         * Returns the digest as hexadecimal digits.
+         *
+         * @return the digest
+         */
+        public String digestHex() {
+            return HexFormat.of().formatHex(digest);
+        }
+
+        /**
+         * Checks that this commitment was made to the given order of cards.
+         *
+         * @param cards the cards in the order they were drawn
+         * @return true if the digest matches the salt and the cards
+         */
+        public boolean verify(List<Card> cards) {
+            return verify(digest, salt, encode(cards));
+        }
+
+        /**
+         * Checks an opened commitment.
+         *
+         * @param digest the published digest
+         * @param salt the revealed salt
+         * @param order the revealed card indices
+         * @return true if the digest is the hash of the salt and the order
+         */
+        public static boolean verify(byte[] digest, byte[] salt, byte[] order) {
+            try {
+                return MessageDigest.isEqual(digest, digest(MessageDigest.getInstance("SHA-256"), salt, order));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+
+        /**
+         * Encodes cards as their indices, one byte each.
+         *
+         * @param cards the cards
+         * @return the indices
+         */
+        static byte[] encode(List<Card> cards) {
+            byte[] indices = new byte[cards.size()];
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = (byte) cards.get(i).index();
+            }
+            return indices;
+        }
+
+        /**
+         * Hashes a salt and card indices.
+         *
+         * @param sha256 the digest to use
+         * @param salt the salt
+         * @param order the card indices
+         * @return the hash
+         */
+        private static byte[] digest(MessageDigest sha256, byte[] salt, byte[] order) {
+            sha256.update(salt);
+            sha256.update(order);
+            return sha256.digest();
+        }
+    }
+}
@@ -2,27 +2,45 @@ package model;
 
 import lombok.Getter;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 
 /**
  * Represents a deck of cards used in the Blackjack game.
- * The deck can be shuffled, have cards drawn from it, and be reloaded from a discard pile.
+ * The deck can be shuffled, have cards drawn from it, take back discarded cards and be reloaded from its discard pile.
+ * Every shuffle is derived from the deck's seed and its number, so the state of the random generator can be saved
+ * and restored with the deck. Shuffles of a whole shoe are numbered 0, 1, 2, ... like the shoes of a
+ * {@link ShoeSupplier}, and reloads from the discard pile count down from -1 in a range of their own,
+ * so a reload never repeats the randomizer of a shoe and does not move the number of the next shoe.
+ * <p>
+ * The shoe is a ring buffer over one array holding every card: the cards left to draw start at the head,
+ * and the discard pile follows them. Drawing moves the head forward, discarding fills the slots freed by drawing,
+ * and reloading shuffles the cards left and the discard pile in place, so no card is ever copied between lists.
+ * At the cut card the whole ring can also be swapped for a shoe shuffled in the background ({@link ShoeSupplier}).
+ * <p>
+ * A deck given a {@link CertifiedShuffler} shuffles with it instead, and commits to every shuffled order
+ * ({@link #getCommitment()}); such shuffles cannot be replayed from the seed.
  *
  * @author ptrzgal
  * @version 1.0.0.
  */
-@Getter
 public class Deck {
-    private ArrayList<Card> deck;
 
-    /**
-     * Constructs an empty deck of cards.
-     */
-    public Deck() {
-        deck = new ArrayList<>();
-    }
+    // Variables
+    private Card[] ring;
+    private int head, size, discards;
+    @Getter
+    private long seed = new Random().nextLong();
+    @Getter
+    private long shuffles;
+    @Getter
+    private long reloads;
+    private CertifiedShuffler certified;
+    // Commitment to the cards left after the last certified shuffle, null in the fast mode or after a restore
+    @Getter
+    private CertifiedShuffler.Commitment commitment;
 
     /**
      * Constructs a deck of cards with all possible suits and ranks.
@@ -31,34 +49,61 @@ public class Deck {
      *                    If true, the deck is populated with all combinations of suits and ranks.
      */
     public Deck(boolean ifMakeDeck) {
-        deck = new ArrayList<>();
+        this(ifMakeDeck ? 1 : 0);
+    }
+
+    /**
+     * Constructs a shoe made of the given number of full decks.
+     *
+     * @param decks the number of 52-card decks in the shoe
+     */
+    public Deck(int decks) {
+        ring = new Card[decks * Suit.values().length * Rank.values().length];
 
-        if (ifMakeDeck) {
+        for (int i = 0; i < decks; i++) {
             // Go through all the suits
             for(Suit suit : Suit.values()){
                 // Go through all the ranks
                 for(Rank rank : Rank.values()){
                     // Add a new card containing each iteration's suit and rank
-                    deck.add(new Card(suit, rank));
+                    ring[size++] = new Card(suit, rank);
                 }
             }
         }
     }
 
     /**
-     * Adds a list of cards to the deck.
+     * Constructs a shoe made of the given number of full decks, shuffled in the given mode.
      *
-     * @param cards the list of cards to add to the deck
+     * @param decks the number of 52-card decks in the shoe
+     * @param certified the shuffler of the certified mode, or null for the fast seeded shuffle
      */
-    public void addCards(ArrayList<Card> cards){
-        deck.addAll(cards);
+    public Deck(int decks, CertifiedShuffler certified) {
+        this(decks);
+        this.certified = certified;
     }
 
     /**
-     * Shuffles the cards in the deck using a randomizer.
+     * Puts cards on the discard pile, into the slots freed by drawing.
+     *
+     * @param cards the cards to discard, drawn from this deck
+     * @throws IllegalStateException if more cards are discarded than were drawn
+     */
+    public void discard(List<Card> cards){
+        if (size + discards + cards.size() > ring.length) {
+            throw new IllegalStateException("More cards discarded than drawn from the deck");
+        }
+        for (Card card : cards) {
+            ring[slot(size + discards++)] = card;
+        }
+    }
+
+    /**
+     * Shuffles the cards in the deck using a randomizer seeded from the deck's seed and shuffle count,
+     * or the certified shuffler if the deck has one. The discard pile is not touched.
      */
     public void shuffle() {
-        Collections.shuffle(deck, new Random());
+        shuffle(size, shuffles++);
     }
 
     /**
@@ -68,12 +113,13 @@ public class Deck {
      * @throws EmptyDeckException if the deck is empty and no card can be drawn
      */
     public Card takeCard() throws EmptyDeckException {
-        if (deck.isEmpty()) {
+        if (size == 0) {
             throw new EmptyDeckException("The deck is empty. No more cards can be drawn.");
         }
-        // Take a copy of the first card from the deck
-        Card cardToTake = deck.getFirst();
-        deck.removeFirst();  // Remove the first card
+        // The slot of the card is free for the discard pile
+        Card cardToTake = ring[head];
+        head = slot(1);
+        size--;
         return cardToTake;
     }
 
@@ -83,25 +129,135 @@ public class Deck {
      * @return true if there are cards left in the deck, false otherwise
      */
     public boolean hasCards(){
-        return !deck.isEmpty();
+        return size > 0;
     }
 
     /**
-     * Clears the deck, removing all cards.
+     * Clears the deck and its discard pile, removing all cards.
      */
     public void emptyDeck(){
-        deck.clear();
+        head = 0;
+        size = 0;
+        discards = 0;
+    }
+
+    /**
+     * Reloads the deck from the discard pile and shuffles the cards:
+     * the discard pile joins the cards left, which it follows in the ring, and both are shuffled in place.
+     * The shuffle is numbered in the range of reloads, so the number of the next shoe stays the same.
+     */
+    public void reloadDeckFromDiscard(){
+        size += discards;
+        discards = 0;
+        shuffle(size, ~reloads++);
     }
 
     /**
-     * Reloads the deck from the discard pile and shuffles the cards.
+     * Replaces the whole shoe with a shuffled one in constant time, e.g. at the cut card.
+     * Every card must be back in the deck or on its discard pile, none in a hand.
      *
-     * @param discard the deck representing the discard pile
+     * @param shoe the shuffled shoe, with as many cards as this deck; its array becomes the ring of the deck
+     * @return the array of the previous shoe, for {@link ShoeSupplier#recycle(Card[])}
+     * @throws IllegalStateException if cards are still in play
+     * @throws IllegalArgumentException if the shoe does not have as many cards as the deck
      */
-    public void reloadDeckFromDiscard(Deck discard){
-        this.addCards(discard.getDeck());
-        this.shuffle();
-        discard.emptyDeck();
+    public Card[] swap(ShoeSupplier.Shoe shoe) {
+        if (size + discards != ring.length) {
+            throw new IllegalStateException("Cards are still in play");
+        }
+        if (shoe.cards().length != ring.length) {
+            throw new IllegalArgumentException("The shoe has " + shoe.cards().length + " cards instead of " + ring.length);
+        }
+        Card[] previous = ring;
+        ring = shoe.cards();
+        head = 0;
+        size = ring.length;
+        discards = 0;
+        shuffles = shoe.shuffle() + 1;
+        commitment = shoe.commitment();
+        return previous;
+    }
+
+    /**
+     * Returns the cards left in the deck, in the order they will be drawn.
+     *
+     * @return a copy of the cards in the deck
+     */
+    public List<Card> cards() {
+        return new ArrayList<>(getDeck());
+    }
+
+    /**
+     * Returns the discard pile, in the order the cards were discarded.
+     *
+     * @return a copy of the discard pile
+     */
+    public List<Card> discarded() {
+        List<Card> cards = new ArrayList<>(discards);
+        for (int i = 0; i < discards; i++) {
+            cards.add(ring[slot(size + i)]);
+        }
+        return cards;
+    }
+
+    /**
+     * Returns the cards left in the deck, in the order they will be drawn, without copying them.
+     * The view follows the deck as cards are drawn and must not be kept across reloads.
+     *
+     * @return a read-only view of the cards in the deck
+     */
+    public List<Card> getDeck() {
+        return new AbstractList<>() {
+            @Override
+            public Card get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                return ring[slot(index)];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Replaces the content of the deck and the state of its randomizer, e.g. when a saved game is resumed.
+     * The discard pile is emptied and no reload is counted.
+     *
+     * @param cards the cards in the order they will be drawn
+     * @param seed the seed of the randomizer
+     * @param shuffles the number of shoe shuffles done so far
+     */
+    public void restore(List<Card> cards, long seed, long shuffles) {
+        restore(cards, List.of(), seed, shuffles, 0);
+    }
+
+    /**
+     * Replaces the content of the deck, its discard pile and the state of its randomizer, e.g. when a saved game is resumed.
+     *
+     * @param cards the cards in the order they will be drawn
+     * @param discarded the discard pile, in the order the cards were discarded
+     * @param seed the seed of the randomizer
+     * @param shuffles the number of shoe shuffles done so far
+     * @param reloads the number of reloads from the discard pile done so far
+     * @throws IllegalArgumentException if the deck cannot hold the cards
+     */
+    public void restore(List<Card> cards, List<Card> discarded, long seed, long shuffles, long reloads) {
+        if (cards.size() + discarded.size() > ring.length) {
+            throw new IllegalArgumentException("The deck holds at most " + ring.length + " cards");
+        }
+        emptyDeck();
+        for (Card card : cards) {
+            ring[size++] = card;
+        }
+        discard(discarded);
+        this.commitment = null;
+        this.seed = seed;
+        this.shuffles = shuffles;
+        this.reloads = reloads;
     }
 
     /**
@@ -110,7 +266,66 @@ public class Deck {
      * @return the number of remaining cards in the deck
      */
     public int cardsLeft(){
-        return deck.size();
+        return size;
+    }
+
+    /**
+     * Returns the number of cards on the discard pile.
+     *
+     * @return the number of discarded cards
+     */
+    public int cardsDiscarded(){
+        return discards;
+    }
+
+    /**
+     * Shuffles the first cards of the ring from the head in place, drawing the same swaps as
+     * {@link java.util.Collections#shuffle(List, java.util.Random)} did on the list of those cards.
+     * A certified shuffle also commits to the new order.
+     *
+     * @param count the number of cards to shuffle
+     * @param shuffle the number of the shuffle, which decides its randomizer
+     */
+    private void shuffle(int count, long shuffle) {
+        Random random = certified == null ? new Random(shuffleSeed(seed, shuffle)) : null;
+        for (int i = count; i > 1; i--) {
+            int a = slot(i - 1);
+            int b = slot(random != null ? random.nextInt(i) : certified.nextInt(i));
+            Card card = ring[a];
+            ring[a] = ring[b];
+            ring[b] = card;
+        }
+        if (certified != null) {
+            commitment = certified.commit(getDeck());
+        }
+    }
+
+    /**
+     * Returns the seed of the randomizer of one shuffle, so every shuffle of a deck gets its own randomizer.
+     * The seeds are scrambled with the SplitMix64 finalizer: {@link Random} keeps only the low 48 bits of its seed, and
+     * seeds in an arithmetic progression made the shuffles of a deck more even than independent ones
+     * (see {@code ShuffleQualityTest}).
+     *
+     * @param seed the seed of the deck
+     * @param shuffle the number of the shuffle
+     * @return the seed of the shuffle's randomizer
+     */
+    public static long shuffleSeed(long seed, long shuffle) {
+        long z = seed + 0x9E3779B97F4A7C15L * shuffle;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns the array index of a position counted from the head of the ring.
+     *
+     * @param position the position from the head
+     * @return the index in the ring
+     */
+    private int slot(int position) {
+        int index = head + position;
+        return index >= ring.length ? index - ring.length : index;
     }
 
     /**
@@ -1,6 +1,7 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Represents a hand of cards in the Blackjack game.
@@ -31,6 +32,15 @@ public class Hand {
         hand.add(deck.takeCard());
     }
 
+    /**
+     * Adds a card to the hand, e.g. when a saved game is resumed.
+     *
+     * @param card the card to add
+     */
+    public void addCard(Card card) {
+        hand.add(card);
+    }
+
     /**
      * Calculates and returns the total value of the cards in the hand.
      * If the hand contains an Ace (value of 11), it will adjust the value
@@ -64,14 +74,36 @@ public class Hand {
     }
 
     /**
-     * Discards all the cards in the hand to the provided discard deck.
+     * Returns the value of the hand packed together with its soft flag, see {@link HandTotal}.
+     *
+     * @return the packed total of the hand
+     */
+    public int packedTotal() {
+        int total = 0;
+        for (Card card : hand) {
+            total = HandTotal.add(total, card.getValue());
+        }
+        return total;
+    }
+
+    /**
+     * Checks whether the hand is soft, i.e. it holds an Ace that is still counted as 11.
+     *
+     * @return true if an Ace in the hand is counted as 11, false otherwise
+     */
+    public boolean isSoft() {
+        return HandTotal.isSoft(packedTotal());
+    }
+
+    /**
+     * Discards all the cards in the hand to the discard pile of the deck they were drawn from.
      * After discarding, the hand is cleared.
      *
-     * @param discardDeck the deck to which the cards from the hand will be discarded
+     * @param deck the deck whose discard pile takes the cards from the hand
      */
-    public void discardHandToDeck(Deck discardDeck){
-        // Copy cards from hand to discardDeck
-        discardDeck.addCards(hand);
+    public void discardHandToDeck(Deck deck){
+        // Put the cards on the discard pile of the deck
+        deck.discard(hand);
         // Clear the hand
         hand.clear();
     }
@@ -86,6 +118,15 @@ public class Hand {
         return hand.get(index);
     }
 
+    /**
+     * Returns the cards in the hand, in the order they were taken.
+     *
+     * @return a copy of the cards in the hand
+     */
+    public List<Card> cards() {
+        return new ArrayList<>(hand);
+    }
+
     /**
      * Returns the number of cards in the hand.
      *
@@ -0,0 +1,81 @@
+package model;
+
+/**
+ * Arithmetic on packed hand totals, used where hands are evaluated in bulk without {@link Hand} objects.
+ * A packed total holds the value of the hand in the low bits and the {@link #SOFT} flag
+ * when an Ace is still counted as 11. Adding cards follows the same Ace rules as {@link Hand#calculateValue()}.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public final class HandTotal {
+
+    /**
+     * The flag set when the hand holds an Ace counted as 11.
+     */
+    public static final int SOFT = 32;
+
+    /**
+     * The mask of the hand value in a packed total.
+     */
+    public static final int VALUE_MASK = SOFT - 1;
+
+    private HandTotal() {
+    }
+
+    /**
+     * Returns the packed total of a hand holding a single card.
+     *
+     * @param cardValue the value of the card (2-11)
+     * @return the packed total
+     */
+    public static int of(int cardValue) {
+        return cardValue == 11 ? 11 | SOFT : cardValue;
+    }
+
+    /**
+     * Adds a card to a packed total.
+     * An Ace counts as 11 unless that would exceed 21, and a soft hand going over 21 turns hard.
+     *
+     * @param total the packed total of the hand
+     * @param cardValue the value of the card (2-11)
+     * @return the packed total after adding the card
+     */
+    public static int add(int total, int cardValue) {
+        int value = total & VALUE_MASK;
+        int soft = total & SOFT;
+
+        // An Ace that would exceed 21 counts as 1, like any other small card
+        if (cardValue == 11) {
+            if (value + 11 <= 21) {
+                return (value + 11) | SOFT;
+            }
+            cardValue = 1;
+        }
+        value += cardValue;
+        if (value > 21 && soft != 0) {
+            return value - 10;
+        }
+        return value | soft;
+    }
+
+    /**
+     * Returns the value of a packed total.
+     *
+     * @param total the packed total
+     * @return the value of the hand
+     */
+    public static int value(int total) {
+        return total & VALUE_MASK;
+    }
+
+    /**
+     * Checks whether a packed total is soft.
+     *
+     * @param total the packed total
+     * @return true if an Ace is counted as 11
+     */
+    public static boolean isSoft(int total) {
+        return (total & SOFT) != 0;
+    }
+}
@@ -0,0 +1,36 @@
+package model;
+
+import lombok.Getter;
+
+/**
+ * Represents the settled outcome of a round, with the message shown to the player
+ * and whether the round counts as a win, a loss or a push.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+@Getter
+public enum Outcome {
+    BLACKJACK("Blackjack!!!", 1),
+    DEALER_BLACKJACK("Dealer has blackjack.", -1),
+    DEALER_BUST("Dealer Busts! You win!", 1),
+    DEALER_HIGHER("Dealer wins - Higher hand", -1),
+    PLAYER_HIGHER("You win - Higher hand", 1),
+    PUSH("Equal Value Hands - Push", 0),
+    PLAYER_BUST("You bust!", -1),
+    SURRENDER("You surrender - half the bet is returned", -1);
+
+    private final String message;
+    private final int result;
+
+    /**
+     * Constructs an Outcome with its message and result.
+     *
+     * @param message the message shown to the player
+     * @param result 1 for a win, -1 for a loss and 0 for a push
+     */
+    Outcome(String message, int result) {
+        this.message = message;
+        this.result = result;
+    }
+}
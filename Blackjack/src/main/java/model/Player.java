@@ -23,13 +23,12 @@ public class Player extends Person {
      * If there are no cards left in the deck, it reloads the deck from the discard pile.
      *
      * @param deck the deck from which the player will draw a card
-     * @param discard the discard pile used to reload the deck if necessary
      * @throws RuntimeException if the deck is empty and cannot be reloaded from the discard pile
      */
-    public void hit(Deck deck, Deck discard) {
+    public void hit(Deck deck) {
         // If there's no cards left in the deck
         if (!deck.hasCards()) {
-            deck.reloadDeckFromDiscard(discard);
+            deck.reloadDeckFromDiscard();
         }
 
         try {
@@ -0,0 +1,204 @@
+package model;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Represents the rule set a game of Blackjack is played with.
+ * The defaults match the original table: a single deck, the dealer stands on every 17,
+ * a two-card 21 pays 3:2, no doubling or surrender, and the shoe is only
+ * reshuffled when it runs out of cards, with the fast seeded shuffle.
+ * Rules are read from a properties file and/or command-line flags, see {@link #parse(String[])}.
+ *
+ * @param decks the number of 52-card decks in the shoe
+ * @param dealerHitsSoft17 whether the dealer hits a soft 17 (H17) instead of standing on it (S17)
+ * @param blackjackPayout the payout of a two-card 21 (e.g. 1.5 for 3:2)
+ * @param doubleAllowed whether the player may double down on the first two cards
+ * @param surrenderAllowed whether the player may surrender the first two cards for half the bet
+ * @param penetration the fraction of the shoe dealt before it is reshuffled (1.0 deals until it runs out)
+ * @param certifiedShuffle whether shoes are shuffled with secure, committed randomness ({@link CertifiedShuffler})
+ *                         instead of the seeded randomizer of the deck
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public record Rules(int decks, boolean dealerHitsSoft17, double blackjackPayout,
+                    boolean doubleAllowed, boolean surrenderAllowed, double penetration,
+                    boolean certifiedShuffle) {
+
+    /**
+     * The rules of the original single-deck table.
+     */
+    public static final Rules DEFAULT = new Rules(1, false, 1.5, false, false, 1.0, false);
+
+    /**
+     * Validates the rule set.
+     *
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    public Rules {
+        if (decks < 1 || decks > 8) {
+            throw new IllegalArgumentException("The shoe must hold 1 to 8 decks, got " + decks);
+        }
+        if (blackjackPayout < 1) {
+            throw new IllegalArgumentException("The blackjack payout must be at least 1, got " + blackjackPayout);
+        }
+        if (penetration <= 0 || penetration > 1) {
+            throw new IllegalArgumentException("The penetration must be in (0, 1], got " + penetration);
+        }
+    }
+
+    /**
+     * Returns a short identifier of the rules that shape the player's decisions (e.g. "6D-H17-BJ150-DBL"),
+     * used to name precomputed artifacts.
+     *
+     * @return the identifier of the rule set
+     */
+    public String id() {
+        return decks + "D-" + (dealerHitsSoft17 ? "H17" : "S17") + "-BJ" + Math.round(blackjackPayout * 100)
+                + (doubleAllowed ? "-DBL" : "") + (surrenderAllowed ? "-LS" : "");
+    }
+
+    /**
+     * Returns the number of cards of each value in a full shoe, indexed by card value minus 2
+     * (index 0 holds the twos, index 8 the ten-valued cards and index 9 the aces).
+     *
+     * @return the shoe composition
+     */
+    public int[] shoeComposition() {
+        int[] counts = new int[10];
+        for (Rank rank : Rank.values()) {
+            counts[rank.getValue() - 2] += 4 * decks;
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the number of cards left in the shoe below which it is reshuffled before a new round.
+     * At least four cards are always needed to deal a round.
+     *
+     * @return the reshuffle threshold in cards
+     */
+    public int reshuffleThreshold() {
+        return Math.max(4, (int) Math.round(52 * decks * (1 - penetration)));
+    }
+
+    /**
+     * Builds the rules from command-line flags, starting from the defaults. Every flag must be a rule flag.
+     *
+     * @param args the command-line arguments
+     * @return the rule set
+     * @throws IllegalArgumentException if a flag has an invalid value or is not a rule flag
+     * @see #parse(String[], Set)
+     */
+    public static Rules parse(String[] args) {
+        return parse(args, Set.of());
+    }
+
+    /**
+     * Builds the rules from command-line flags, starting from the defaults.
+     * A properties file given with {@code --rules=<file>} is applied first, then the other flags override it:
+     * {@code --decks=<n>}, {@code --h17}, {@code --s17}, {@code --payout=<x>}, {@code --double},
+     * {@code --surrender}, {@code --penetration=<fraction>} and {@code --certified}.
+     * Arguments not starting with "--" and the flags of the other components given are left to the rest of the
+     * application; any other flag is rejected, so a mistyped rule (e.g. {@code --surender}) is not silently ignored.
+     * The switches take {@code true} or {@code false} as a value (e.g. {@code --double=false}), nothing else.
+     *
+     * @param args the command-line arguments
+     * @param otherFlags the names of the flags (without "--") read by the other components of the command
+     * @return the rule set
+     * @throws IllegalArgumentException if a flag has an invalid value or is unknown
+     */
+    public static Rules parse(String[] args, Set<String> otherFlags) {
+        Properties properties = new Properties();
+
+        // The rules file comes first, so flags can override it
+        for (String arg : args) {
+            if (arg.startsWith("--rules=")) {
+                try (Reader reader = Files.newBufferedReader(Path.of(arg.substring("--rules=".length())))) {
+                    properties.load(reader);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot read rules file " + arg, e);
+                }
+            }
+        }
+
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.startsWith("--rules=")) {
+                continue;
+            }
+            String name = arg.contains("=") ? arg.substring(2, arg.indexOf('=')) : arg.substring(2);
+            String value = arg.contains("=") ? arg.substring(arg.indexOf('=') + 1) : "true";
+            switch (name) {
+                case "decks" -> properties.setProperty("decks", value);
+                case "h17" -> properties.setProperty("dealerHitsSoft17", "true");
+                case "s17" -> properties.setProperty("dealerHitsSoft17", "false");
+                case "payout" -> properties.setProperty("blackjackPayout", value);
+                case "double" -> properties.setProperty("doubleAllowed", value);
+                case "surrender" -> properties.setProperty("surrenderAllowed", value);
+                case "penetration" -> properties.setProperty("penetration", value);
+                case "certified" -> properties.setProperty("certifiedShuffle", value);
+                default -> {
+                    // Flags of other components (e.g. simulation options) are not rules
+                    if (!otherFlags.contains(name)) {
+                        throw new IllegalArgumentException("Unknown option --" + name);
+                    }
+                }
+            }
+        }
+        return fromProperties(properties);
+    }
+
+    /**
+     * Builds the rules from properties, using the defaults for missing keys.
+     * The keys are the component names of this record (e.g. {@code decks=6}, {@code dealerHitsSoft17=true}).
+     *
+     * @param properties the rule properties
+     * @return the rule set
+     * @throws IllegalArgumentException if a value is invalid, e.g. a switch that is neither true nor false
+     */
+    public static Rules fromProperties(Properties properties) {
+        try {
+            return new Rules(
+                    Integer.parseInt(properties.getProperty("decks", String.valueOf(DEFAULT.decks))),
+                    parseSwitch(properties, "dealerHitsSoft17", DEFAULT.dealerHitsSoft17),
+                    Double.parseDouble(properties.getProperty("blackjackPayout", String.valueOf(DEFAULT.blackjackPayout))),
+                    parseSwitch(properties, "doubleAllowed", DEFAULT.doubleAllowed),
+                    parseSwitch(properties, "surrenderAllowed", DEFAULT.surrenderAllowed),
+                    Double.parseDouble(properties.getProperty("penetration", String.valueOf(DEFAULT.penetration))),
+                    parseSwitch(properties, "certifiedShuffle", DEFAULT.certifiedShuffle));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid rules: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads a switch of the rules, which must be {@code true} or {@code false} (in any case).
+     * Unlike {@link Boolean#parseBoolean(String)}, a value such as {@code yes} or {@code 1} is rejected
+     * instead of being read as false.
+     *
+     * @param properties the rule properties
+     * @param key the key of the switch
+     * @param defaultValue the value of a missing switch
+     * @return the value of the switch
+     * @throws IllegalArgumentException if the value is neither true nor false
+     */
+    private static boolean parseSwitch(Properties properties, String key, boolean defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value.trim().equalsIgnoreCase("true")) {
+            return true;
+        }
+        if (value.trim().equalsIgnoreCase("false")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Invalid rules: " + key + " must be true or false, got " + value);
+    }
+}
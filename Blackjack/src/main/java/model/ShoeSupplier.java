@@ -0,0 +1,133 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Shuffles the next shoes on a background thread, so the table swaps in a ready shoe at the cut card
+ * ({@link Deck#swap(Shoe)}) instead of shuffling while the player waits.
+ * At most {@link #DEPTH} shoes wait in a bounded hand-off queue; the thread blocks once they are ready,
+ * and the arrays of played shoes are handed back ({@link #recycle(Card[])}) so shuffling allocates nothing.
+ * <p>
+ * Every shoe starts from the ordered shoe and is shuffled with the randomizer of its shuffle number
+ * ({@link Deck#shuffleSeed(long, long)}), so a shoe depends only on the seed and its number
+ * and a saved game resumes with the same shoes. Reloads of a deck from its discard pile are numbered in a range of
+ * their own ({@link Deck#reloadDeckFromDiscard()}), so they never share the randomizer of a shoe. In the certified mode the shoes are shuffled with a
+ * {@link CertifiedShuffler} of the supplier thread instead, and come with the commitment to their order.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public class ShoeSupplier implements AutoCloseable {
+
+    /**
+     * The number of shuffled shoes kept ready.
+     */
+    public static final int DEPTH = 2;
+
+    // Variables
+    private final Card[] ordered;
+    private final long seed;
+    private final boolean certified;
+    private final BlockingQueue<Shoe> ready = new ArrayBlockingQueue<>(DEPTH);
+    private final BlockingQueue<Card[]> free = new ArrayBlockingQueue<>(DEPTH + 2);
+    private final Thread thread;
+
+    /**
+     * Starts shuffling shoes in the background.
+     *
+     * @param decks the number of 52-card decks in a shoe
+     * @param seed the seed of the shoes, as in {@link Deck#getSeed()}
+     * @param firstShuffle the shuffle number of the first shoe, as in {@link Deck#getShuffles()}
+     */
+    public ShoeSupplier(int decks, long seed, long firstShuffle) {
+        this(decks, seed, firstShuffle, false);
+    }
+
+    /**
+     * Starts shuffling shoes in the background, in the fast or the certified mode.
+     *
+     * @param decks the number of 52-card decks in a shoe
+     * @param seed the seed of the shoes, as in {@link Deck#getSeed()}; not used by certified shuffles
+     * @param firstShuffle the shuffle number of the first shoe, as in {@link Deck#getShuffles()}
+     * @param certified whether the shoes are shuffled with a {@link CertifiedShuffler}
+     */
+    public ShoeSupplier(int decks, long seed, long firstShuffle, boolean certified) {
+        this.ordered = new Deck(decks).cards().toArray(new Card[0]);
+        this.seed = seed;
+        this.certified = certified;
+        thread = new Thread(() -> run(firstShuffle), "shoe-supplier");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Takes the next shuffled shoe, waiting only if the background thread has not finished it yet.
+     *
+     * @return the shoe
+     * @throws InterruptedException if the wait was interrupted
+     */
+    public Shoe take() throws InterruptedException {
+        return ready.take();
+    }
+
+    /**
+     * Hands back the array of a shoe that is no longer used, to be shuffled again.
+     *
+     * @param cards the array of a shoe of this supplier
+     */
+    public void recycle(Card[] cards) {
+        if (cards.length == ordered.length) {
+            free.offer(cards);
+        }
+    }
+
+    /**
+     * Stops the background thread.
+     */
+    @Override
+    public void close() {
+        thread.interrupt();
+    }
+
+    /**
+     * Shuffles shoes one after another until the supplier is closed.
+     *
+     * @param firstShuffle the shuffle number of the first shoe
+     */
+    private void run(long firstShuffle) {
+        try {
+            // Created here, as the DRBG seeds itself from the system on first use
+            CertifiedShuffler shuffler = certified ? new CertifiedShuffler() : null;
+            for (long shuffle = firstShuffle; ; shuffle++) {
+                Card[] cards = free.poll();
+                if (cards == null) {
+                    cards = new Card[ordered.length];
+                }
+                System.arraycopy(ordered, 0, cards, 0, cards.length);
+                CertifiedShuffler.Commitment commitment = null;
+                if (shuffler != null) {
+                    commitment = shuffler.shuffle(cards);
+                } else {
+                    Collections.shuffle(Arrays.asList(cards), new Random(Deck.shuffleSeed(seed, shuffle)));
+                }
+                ready.put(new Shoe(cards, shuffle, commitment));
+            }
+        } catch (InterruptedException e) {
+            // Closed
+        }
+    }
+
+    /**
+     * A shuffled shoe.
+     *
+     * @param cards every card of the shoe, in the order they will be drawn
+     * @param shuffle the shuffle number the shoe was shuffled with
+     * @param commitment the commitment to the order of the cards, null in the fast mode
+     */
+    public record Shoe(Card[] cards, long shuffle, CertifiedShuffler.Commitment commitment) {
+    }
+}
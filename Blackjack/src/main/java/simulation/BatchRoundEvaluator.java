@@ -0,0 +1,350 @@
+package simulation;
+
+import lombok.Getter;
+import model.Card;
+import model.Deck;
+import model.HandTotal;
+import model.Outcome;
+import model.Rank;
+import model.Rules;
+import model.Suit;
+import strategy.Action;
+import strategy.RuleTables;
+import strategy.StrategyTable;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.SplittableRandom;
+
+/**
+ * Evaluates rounds in bulk for throughput-critical analysis.
+ * Every lane owns a shoe and plays one round per {@link #playRound()} call, all lanes advancing in lockstep.
+ * The state of the rounds lives in parallel primitive arrays (struct-of-arrays) instead of
+ * per-round Hand, Player and Dealer objects, and cards are stored as their values, taken from
+ * {@link Rank#getValue()} through the flat {@link #CARD_VALUES} table.
+ * The player follows a {@link StrategyTable}, the dealers are resolved together by a {@link DealerKernel},
+ * and a round is settled in the same order as {@link controller.Game#checkWins()}.
+ * Lanes shuffle their own shoes, or play the shoes of a {@link ShoeSource} so several evaluators play the same ones;
+ * with a source, lanes whose shoes ran out sit idle (their rounds are not played and pay nothing).
+ * The shoes take most of the memory of a large run, so they live off-heap in the arena of the run ({@link OffHeap}).
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+@Getter
+public class BatchRoundEvaluator {
+
+    /**
+     * The value of every card, indexed by {@link Card#index()}.
+     */
+    public static final byte[] CARD_VALUES = cardValues();
+
+    /**
+     * The most cards a single round can take from the shoe; lanes reshuffle before dropping below it.
+     */
+    public static final int MAX_ROUND_CARDS = 24;
+
+    private static final Outcome[] OUTCOMES = Outcome.values();
+    private static final ValueLayout.OfByte CARD = ValueLayout.JAVA_BYTE;
+    private static final byte STAND = Action.STAND.getCode();
+    private static final byte DOUBLE = Action.DOUBLE.getCode();
+    private static final byte SURRENDER = Action.SURRENDER.getCode();
+
+    // Variables
+    private final int lanes, shoeSize, reshuffleAt;
+    private final RuleTables tables;
+    private final byte[] decisions;
+    private final DealerKernel dealerKernel;
+    private final MemorySegment shoes;
+    private final int[] cursor;
+    private final SplittableRandom[] random;
+    private final ShoeSource source;
+    private final boolean[] live;
+
+    // Per-lane state of the current round
+    private final int[] playerTotal, dealerTotal, initialTotal, upcard, bet;
+    private final boolean[] active, dealerPlays;
+    private final byte[] outcome;
+    private final double[] payout;
+    private long rounds;
+
+    /**
+     * Constructs an evaluator with one freshly shuffled shoe per lane.
+     * Lane {@code i} shuffles with a generator seeded with {@code firstSeed + i}, so runs are reproducible.
+     *
+     * @param rules the rules of the table
+     * @param strategy the player strategy
+     * @param lanes the number of rounds played per call
+     * @param firstSeed the seed of the first lane
+     * @param arena the arena the shoes are allocated from; the evaluator must not be used once it is closed
+     */
+    public BatchRoundEvaluator(Rules rules, StrategyTable strategy, int lanes, long firstSeed, Arena arena) {
+        this(rules, strategy, lanes, firstSeed, null, arena);
+    }
+
+    /**
+     * Constructs an evaluator playing the shoes of a source. All lanes are idle until {@link #loadShoes()}.
+     *
+     * @param rules the rules of the table
+     * @param strategy the player strategy
+     * @param lanes the number of rounds played per call
+     * @param source the source of the shoes
+     * @param arena the arena the shoes are allocated from; the evaluator must not be used once it is closed
+     */
+    public BatchRoundEvaluator(Rules rules, StrategyTable strategy, int lanes, ShoeSource source, Arena arena) {
+        this(rules, strategy, lanes, 0, source, arena);
+    }
+
+    /**
+     * Constructs an evaluator that shuffles its own shoes, or plays those of a source.
+     *
+     * @param rules the rules of the table
+     * @param strategy the player strategy
+     * @param lanes the number of rounds played per call
+     * @param firstSeed the seed of the first lane, when the lanes shuffle their own shoes
+     * @param source the source of the shoes, or null
+     * @param arena the arena the shoes are allocated from
+     */
+    private BatchRoundEvaluator(Rules rules, StrategyTable strategy, int lanes, long firstSeed, ShoeSource source,
+                                Arena arena) {
+        this.lanes = lanes;
+        this.source = source;
+        this.tables = RuleTables.of(rules);
+        this.decisions = strategy.getTable();
+        this.dealerKernel = DealerKernel.best(rules.dealerHitsSoft17());
+
+        // Every lane starts from the ordered shoe of Deck, stored off-heap as card values
+        byte[] ordered = shoeValues(new Deck(rules.decks()));
+        shoeSize = ordered.length;
+        reshuffleAt = Math.max(rules.reshuffleThreshold(), MAX_ROUND_CARDS);
+        shoes = OffHeap.allocate(arena, (long) lanes * shoeSize);
+        cursor = new int[lanes];
+        random = new SplittableRandom[lanes];
+        live = new boolean[lanes];
+        if (source == null) {
+            for (int lane = 0; lane < lanes; lane++) {
+                MemorySegment.copy(ordered, 0, shoes, ValueLayout.JAVA_BYTE, (long) lane * shoeSize, shoeSize);
+                random[lane] = new SplittableRandom(firstSeed + lane);
+                live[lane] = true;
+                shuffle(lane);
+            }
+        }
+
+        playerTotal = new int[lanes];
+        dealerTotal = new int[lanes];
+        initialTotal = new int[lanes];
+        upcard = new int[lanes];
+        bet = new int[lanes];
+        active = new boolean[lanes];
+        dealerPlays = new boolean[lanes];
+        outcome = new byte[lanes];
+        payout = new double[lanes];
+    }
+
+    /**
+     * Plays one round in every lane. The results are left in the per-lane arrays
+     * ({@link #getOutcome()}, {@link #getPayout()}, ...) until the next call.
+     */
+    public void playRound() {
+        deal();
+        playPlayers();
+        playDealers();
+        settle();
+    }
+
+    /**
+     * Gives every lane its next shoe from the source; lanes without one stay idle.
+     * Used to start playing a new batch of shoes once all lanes went idle.
+     */
+    public void loadShoes() {
+        for (int lane = 0; lane < lanes; lane++) {
+            nextShoe(lane);
+        }
+    }
+
+    /**
+     * Checks whether every lane is idle, waiting for shoes from the source.
+     *
+     * @return true if no lane has a shoe to play
+     */
+    public boolean isIdle() {
+        for (boolean shoe : live) {
+            if (shoe) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the shoes of lanes that reached the cut card and deals two cards to the dealer, then two to the player.
+     */
+    private void deal() {
+        for (int lane = 0; lane < lanes; lane++) {
+            if (live[lane] && shoeSize - cursor[lane] < reshuffleAt) {
+                nextShoe(lane);
+            }
+            if (!live[lane]) {
+                active[lane] = false;
+                continue;
+            }
+            long base = (long) lane * shoeSize + cursor[lane];
+            int up = shoes.get(CARD, base);
+            dealerTotal[lane] = HandTotal.add(HandTotal.of(up), shoes.get(CARD, base + 1));
+            playerTotal[lane] = HandTotal.add(HandTotal.of(shoes.get(CARD, base + 2)), shoes.get(CARD, base + 3));
+            initialTotal[lane] = playerTotal[lane];
+            upcard[lane] = up;
+            cursor[lane] += 4;
+            bet[lane] = 1;
+            active[lane] = true;
+            outcome[lane] = -1;
+        }
+    }
+
+    /**
+     * Plays the player hands in lockstep until every lane stands, doubles, surrenders or busts.
+     */
+    private void playPlayers() {
+        boolean first = true;
+        boolean any = true;
+        while (any) {
+            any = false;
+            for (int lane = 0; lane < lanes; lane++) {
+                if (!active[lane]) {
+                    continue;
+                }
+                int total = playerTotal[lane];
+                int value = HandTotal.value(total);
+                byte action = value >= 21 ? STAND : decisions[(first ? StrategyTable.LAYER : 0)
+                        + StrategyTable.index(Math.max(value, 4), HandTotal.isSoft(total), upcard[lane])];
+
+                if (action == STAND) {
+                    active[lane] = false;
+                } else if (action == SURRENDER) {
+                    active[lane] = false;
+                    outcome[lane] = (byte) Outcome.SURRENDER.ordinal();
+                } else {
+                    // Hit, or double: one card for twice the bet
+                    total = HandTotal.add(total, shoes.get(CARD, (long) lane * shoeSize + cursor[lane]++));
+                    playerTotal[lane] = total;
+                    if (action == DOUBLE) {
+                        bet[lane] = 2;
+                        active[lane] = false;
+                    }
+                    if (HandTotal.value(total) > 21) {
+                        active[lane] = false;
+                        outcome[lane] = (byte) Outcome.PLAYER_BUST.ordinal();
+                    }
+                    any |= active[lane];
+                }
+            }
+            first = false;
+        }
+    }
+
+    /**
+     * Plays the dealer hands with the dealer kernel; lanes where the round already ended (bust or surrender) do not draw.
+     */
+    private void playDealers() {
+        for (int lane = 0; lane < lanes; lane++) {
+            dealerPlays[lane] = live[lane] && outcome[lane] < 0;
+        }
+        dealerKernel.resolve(dealerTotal, dealerPlays, shoes, shoeSize, cursor, lanes);
+    }
+
+    /**
+     * Settles every lane from the settlement table of the rules.
+     */
+    private void settle() {
+        for (int lane = 0; lane < lanes; lane++) {
+            if (!live[lane]) {
+                payout[lane] = 0;
+                continue;
+            }
+            if (outcome[lane] < 0) {
+                outcome[lane] = (byte) tables.settle(HandTotal.value(playerTotal[lane]), HandTotal.value(dealerTotal[lane])).ordinal();
+            }
+            boolean natural = HandTotal.value(initialTotal[lane]) == 21;
+            payout[lane] = bet[lane] * tables.payout(OUTCOMES[outcome[lane]], natural);
+            rounds++;
+        }
+    }
+
+    /**
+     * Replaces the shoe of a lane: reshuffles it, or loads the next one from the source.
+     *
+     * @param lane the lane whose shoe is finished
+     */
+    private void nextShoe(int lane) {
+        if (source == null) {
+            shuffle(lane);
+            return;
+        }
+        cursor[lane] = 0;
+        live[lane] = source.next(lane, shoes, (long) lane * shoeSize);
+    }
+
+    /**
+     * Aligns the shoes with another evaluator playing the same shoes (same rules and lanes, and the same first seed
+     * or the same shoe source)
+     * for common random numbers: every lane of both continues from the furthest card either of them dealt,
+     * so the next round starts from identical cards and both reshuffle together. The skipped cards were seen
+     * by neither, so neither result is biased.
+     *
+     * @param other the evaluator playing the same shoes
+     */
+    public void synchronize(BatchRoundEvaluator other) {
+        for (int lane = 0; lane < lanes; lane++) {
+            int position = Math.max(cursor[lane], other.cursor[lane]);
+            cursor[lane] = position;
+            other.cursor[lane] = position;
+        }
+    }
+
+    /**
+     * Shuffles the whole shoe of a lane in place (Fisher-Yates) and resets its cursor.
+     *
+     * @param lane the lane to reshuffle
+     */
+    private void shuffle(int lane) {
+        long base = (long) lane * shoeSize;
+        SplittableRandom generator = random[lane];
+        for (int i = shoeSize - 1; i > 0; i--) {
+            long j = base + generator.nextInt(i + 1);
+            byte card = shoes.get(CARD, base + i);
+            shoes.set(CARD, base + i, shoes.get(CARD, j));
+            shoes.set(CARD, j, card);
+        }
+        cursor[lane] = 0;
+    }
+
+    /**
+     * Returns the card values of a deck, in the deck's order.
+     *
+     * @param deck the deck to convert
+     * @return the value of every card of the deck
+     */
+    public static byte[] shoeValues(Deck deck) {
+        byte[] values = new byte[deck.cardsLeft()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = CARD_VALUES[deck.getDeck().get(i).index()];
+        }
+        return values;
+    }
+
+    /**
+     * Builds the card value table from the ranks.
+     *
+     * @return the value of every card
+     */
+    private static byte[] cardValues() {
+        byte[] values = new byte[Suit.values().length * Rank.values().length];
+        for (Suit suit : Suit.values()) {
+            for (Rank rank : Rank.values()) {
+                values[new Card(suit, rank).index()] = (byte) rank.getValue();
+            }
+        }
+        return values;
+    }
+}
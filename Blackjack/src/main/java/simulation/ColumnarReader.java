@@ -0,0 +1,171 @@
+package simulation;
+
+import lombok.Getter;
+import model.HandTotal;
+import model.Outcome;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a simulation file written by {@link ColumnarWriter} chunk by chunk, reusing one chunk buffer.
+ * The chunk is off-heap, in an arena of the reader freed when it is closed.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public class ColumnarReader implements AutoCloseable {
+
+    private static final ValueLayout.OfByte BYTE = ValueLayout.JAVA_BYTE;
+
+    // Variables
+    private final DataInputStream in;
+    private final Arena arena = Arena.ofConfined();
+    @Getter
+    private final String rulesId;
+    @Getter
+    private final List<String> names = new ArrayList<>();
+    private final byte[] dictionary = new byte[256];
+    private ByteBuffer packed = ByteBuffer.allocate(0);
+    private RoundColumns chunk = new RoundColumns(0, arena);
+
+    /**
+     * Opens a simulation file and reads its header.
+     *
+     * @param file the file to read
+     * @throws IOException if the file cannot be read or is not a simulation file
+     */
+    public ColumnarReader(Path file) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+        if (in.readInt() != ColumnarWriter.MAGIC || in.readInt() != ColumnarWriter.VERSION) {
+            close();
+            throw new IOException("Unsupported simulation file " + file);
+        }
+        rulesId = in.readUTF();
+        int columns = in.readInt();
+        for (int i = 0; i < columns; i++) {
+            names.add(in.readUTF());
+        }
+    }
+
+    /**
+     * Reads the next chunk. The returned chunk is overwritten by the next call.
+     *
+     * @return the next chunk, or null at the end of the file
+     * @throws IOException if the file is truncated or corrupt
+     */
+    public RoundColumns next() throws IOException {
+        int rows = in.readInt();
+        if (rows == 0) {
+            return null;
+        }
+        if (chunk.getCapacity() < rows) {
+            chunk = new RoundColumns(rows, arena);
+        }
+        for (MemorySegment column : chunk.getColumns()) {
+            int size = in.readUnsignedByte() + 1;
+            in.readFully(dictionary, 0, size);
+            int width = in.readUnsignedByte();
+            int length = in.readInt();
+            if (width > 8 || length != (int) (((long) rows * width + Long.SIZE - 1) / Long.SIZE * Long.BYTES)) {
+                throw new IOException("Corrupt column in simulation file");
+            }
+            if (packed.capacity() < length) {
+                packed = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            packed.clear();
+            in.readFully(packed.array(), 0, length);
+            unpack(column, rows, width, size);
+        }
+        chunk.setRows(rows);
+        return chunk;
+    }
+
+    /**
+     * Unpacks the bit-packed dictionary codes of a column into its values.
+     *
+     * @param column the column to fill
+     * @param rows the number of rounds in the chunk
+     * @param width the width of a code in bits
+     * @param size the number of values in the dictionary
+     * @throws IOException if a code is outside the dictionary
+     */
+    private void unpack(MemorySegment column, int rows, int width, int size) throws IOException {
+        if (width == 0) {
+            column.asSlice(0, rows).fill(dictionary[0]);
+            return;
+        }
+        long mask = (1L << width) - 1;
+        long word = 0;
+        int bits = 0;
+        for (int row = 0; row < rows; row++) {
+            int code;
+            if (bits >= width) {
+                code = (int) (word & mask);
+                word >>>= width;
+                bits -= width;
+            } else {
+                // The code continues in the next word
+                long next = packed.getLong();
+                code = (int) ((word | next << bits) & mask);
+                word = next >>> (width - bits);
+                bits += Long.SIZE - width;
+            }
+            if (code >= size) {
+                throw new IOException("Corrupt column in simulation file");
+            }
+            column.set(BYTE, row, dictionary[code]);
+        }
+    }
+
+    /**
+     * Prints a simulation file as CSV, one line per round, with plain totals and outcome names.
+     *
+     * @param file the simulation file
+     * @param out the stream to print to
+     * @throws IOException if the file cannot be read
+     */
+    public static void dumpCsv(Path file, PrintStream out) throws IOException {
+        Outcome[] outcomes = Outcome.values();
+        try (ColumnarReader reader = new ColumnarReader(file)) {
+            out.println(String.join(",", reader.getNames()));
+            StringBuilder line = new StringBuilder();
+            for (RoundColumns chunk = reader.next(); chunk != null; chunk = reader.next()) {
+                MemorySegment[] columns = chunk.getColumns();
+                for (long row = 0; row < chunk.getRows(); row++) {
+                    line.setLength(0);
+                    line.append(columns[RoundColumns.UPCARD].get(BYTE, row)).append(',')
+                            .append(HandTotal.value(columns[RoundColumns.INITIAL_TOTAL].get(BYTE, row))).append(',')
+                            .append(HandTotal.value(columns[RoundColumns.PLAYER_TOTAL].get(BYTE, row))).append(',')
+                            .append(HandTotal.value(columns[RoundColumns.DEALER_TOTAL].get(BYTE, row))).append(',')
+                            .append(outcomes[columns[RoundColumns.OUTCOME].get(BYTE, row)]).append(',')
+                            .append(columns[RoundColumns.BET].get(BYTE, row));
+                    out.println(line);
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the file and frees the chunk.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        try (in) {
+            arena.close();
+        }
+    }
+}
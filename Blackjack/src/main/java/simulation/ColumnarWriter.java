@@ -0,0 +1,316 @@
+package simulation;
+
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Streams simulated rounds to a compressed columnar file on a background thread.
+ * The simulation takes an empty {@link RoundColumns} chunk with {@link #take()}, fills it and hands it back
+ * with {@link #submit(RoundColumns)}; the writer thread compresses every column and returns the chunk to the pool.
+ * A fixed pool of chunks bounds the memory and makes the simulation wait if the disk cannot keep up.
+ * Every column holds only a handful of distinct values, so it is compressed the way columnar formats such as Parquet do:
+ * a per-chunk dictionary of the values present, and the dictionary codes bit-packed at the smallest width
+ * (a column with a single value takes no bits at all). This costs a few nanoseconds per round,
+ * far less than general-purpose compression, which would take about half the simulation time.
+ * <p>
+ * The file holds the {@link #MAGIC} number, the format version, the rules id and the column names,
+ * then chunks ended by an empty chunk. A chunk holds the number of rounds and, per column, the dictionary size,
+ * the dictionary values, the code width in bits, the number of packed bytes and the packed codes
+ * (little-endian 64-bit words, the first code in the lowest bits).
+ * See {@link ColumnarReader} for reading it back.
+ * <p>
+ * The chunks and the buffer a chunk is encoded into are off-heap, in the arena of the run ({@link OffHeap}),
+ * and the encoded chunk goes to the file channel straight from there, without a copy on the heap.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public class ColumnarWriter implements AutoCloseable {
+
+    /**
+     * The magic number at the start of a simulation file ("BJSM").
+     */
+    public static final int MAGIC = 0x424A534D;
+
+    /**
+     * The version of the file format.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The extension of simulation files.
+     */
+    public static final String EXTENSION = ".bjsim";
+
+    // Marks the end of the stream for the writer thread
+    private static final RoundColumns END = new RoundColumns(0, Arena.global());
+
+    // Integers are big-endian as in DataOutputStream, the packed codes little-endian
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfLong WORD = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfByte BYTE = ValueLayout.JAVA_BYTE;
+
+    // The most bytes a column adds besides its codes: dictionary size, dictionary, width, length and a partial word
+    private static final int COLUMN_OVERHEAD = 1 + 256 + 1 + Integer.BYTES + Long.BYTES;
+
+    // Variables
+    private final FileChannel out;
+    private final BlockingQueue<RoundColumns> free, filled;
+    private final Thread thread;
+    private final MemorySegment buffer;
+    private long position;
+    private final boolean[] present = new boolean[256];
+    private final int[] codes = new int[256];
+    private final byte[] dictionary = new byte[256];
+    private volatile IOException failure;
+
+    // Progress of the writer thread
+    @Getter
+    private volatile long rows, bytesWritten, busyNanos;
+
+    /**
+     * Creates the file, writes its header and starts the writer thread.
+     *
+     * @param file the file to write
+     * @param rulesId the id of the rules the rounds were played with
+     * @param chunkRows the number of rounds per chunk
+     * @param buffers the number of chunks in the pool (at least 2, so filling and writing overlap)
+     * @param arena the arena of the run, shared with the threads filling the chunks and closed after this writer
+     * @throws IOException if the file cannot be created
+     */
+    public ColumnarWriter(Path file, String rulesId, int chunkRows, int buffers, Arena arena) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        try (DataOutputStream data = new DataOutputStream(header)) {
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            data.writeUTF(rulesId);
+            data.writeInt(RoundColumns.NAMES.size());
+            for (String name : RoundColumns.NAMES) {
+                data.writeUTF(name);
+            }
+        }
+        write(ByteBuffer.wrap(header.toByteArray()));
+
+        // At most 8 bits per code in every column
+        buffer = OffHeap.allocate(arena, Integer.BYTES + (long) RoundColumns.NAMES.size() * (chunkRows + COLUMN_OVERHEAD));
+        free = new ArrayBlockingQueue<>(buffers);
+        filled = new ArrayBlockingQueue<>(buffers + 1);
+        for (int i = 0; i < buffers; i++) {
+            free.add(new RoundColumns(chunkRows, arena));
+        }
+
+        thread = new Thread(this::run, "simulation-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Returns an empty chunk, waiting until the writer frees one.
+     *
+     * @return the chunk to fill
+     * @throws IOException if writing failed or the wait was interrupted
+     */
+    public RoundColumns take() throws IOException {
+        checkFailure();
+        try {
+            return free.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a free chunk");
+        }
+    }
+
+    /**
+     * Queues a filled chunk for writing. The chunk must not be touched afterwards.
+     *
+     * @param chunk the chunk taken with {@link #take()}
+     */
+    public void submit(RoundColumns chunk) {
+        filled.add(chunk);
+    }
+
+    /**
+     * Writes the remaining chunks, ends the file and stops the writer thread.
+     *
+     * @throws IOException if writing failed
+     */
+    @Override
+    public void close() throws IOException {
+        filled.add(END);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing the simulation file");
+        }
+        try (out) {
+            checkFailure();
+            buffer.set(INT, 0, 0);
+            write(buffer.asSlice(0, Integer.BYTES).asByteBuffer());
+            bytesWritten += Integer.BYTES;
+        }
+    }
+
+    /**
+     * Writes chunks as they come until the end marker. After a failure chunks are only recycled,
+     * so the simulation is not blocked and sees the error on its next {@link #take()}.
+     */
+    private void run() {
+        while (true) {
+            RoundColumns chunk;
+            try {
+                chunk = filled.take();
+            } catch (InterruptedException e) {
+                failure = new InterruptedIOException("Simulation writer interrupted");
+                return;
+            }
+            if (chunk == END) {
+                return;
+            }
+            // An empty chunk would read as the end of the file
+            if (failure == null && chunk.getRows() > 0) {
+                long start = System.nanoTime();
+                try {
+                    write(chunk);
+                } catch (IOException e) {
+                    failure = e;
+                }
+                busyNanos += System.nanoTime() - start;
+            }
+            chunk.clear();
+            free.add(chunk);
+        }
+    }
+
+    /**
+     * Compresses the columns of one chunk into the buffer and writes it.
+     *
+     * @param chunk the chunk to write
+     * @throws IOException if writing failed
+     */
+    private void write(RoundColumns chunk) throws IOException {
+        int count = chunk.getRows();
+        position = 0;
+        putInt(count);
+        for (MemorySegment column : chunk.getColumns()) {
+            // Dictionary of the values present, in increasing order
+            Arrays.fill(present, false);
+            for (long row = 0; row < count; row++) {
+                present[column.get(BYTE, row) & 0xFF] = true;
+            }
+            int size = 0;
+            for (int value = 0; value < 256; value++) {
+                if (present[value]) {
+                    codes[value] = size;
+                    dictionary[size++] = (byte) value;
+                }
+            }
+            int width = size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+
+            putByte(size - 1);
+            MemorySegment.copy(dictionary, 0, buffer, BYTE, position, size);
+            position += size;
+            putByte(width);
+
+            // Bit-pack the codes into 64-bit words, after their length
+            long lengthAt = position;
+            position += Integer.BYTES;
+            long packedStart = position;
+            if (width > 0) {
+                long word = 0;
+                int bits = 0;
+                for (long row = 0; row < count; row++) {
+                    long code = codes[column.get(BYTE, row) & 0xFF];
+                    word |= code << bits;
+                    bits += width;
+                    if (bits >= Long.SIZE) {
+                        putWord(word);
+                        bits -= Long.SIZE;
+                        word = bits > 0 ? code >>> (width - bits) : 0;
+                    }
+                }
+                if (bits > 0) {
+                    putWord(word);
+                }
+            }
+            buffer.set(INT, lengthAt, (int) (position - packedStart));
+        }
+        write(buffer.asSlice(0, position).asByteBuffer());
+        rows += count;
+        bytesWritten += position;
+    }
+
+    /**
+     * Appends a big-endian int to the buffer.
+     *
+     * @param value the value
+     */
+    private void putInt(int value) {
+        buffer.set(INT, position, value);
+        position += Integer.BYTES;
+    }
+
+    /**
+     * Appends a byte to the buffer.
+     *
+     * @param value the value, of which the lowest 8 bits are kept
+     */
+    private void putByte(int value) {
+        buffer.set(BYTE, position, (byte) value);
+        position++;
+    }
+
+    /**
+     * Appends a little-endian word of packed codes to the buffer.
+     *
+     * @param word the word
+     */
+    private void putWord(long word) {
+        buffer.set(WORD, position, word);
+        position += Long.BYTES;
+    }
+
+    /**
+     * Writes all the remaining bytes of a buffer to the file.
+     *
+     * @param bytes the bytes to write
+     * @throws IOException if writing failed
+     */
+    private void write(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Rethrows the failure of the writer thread, if any.
+     *
+     * @throws IOException the failure of the writer thread
+     */
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
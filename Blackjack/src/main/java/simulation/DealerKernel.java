@@ -0,0 +1,42 @@
+package simulation;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Resolves the dealer hands of many independent rounds at once.
+ * Every lane draws from its own shoe until the dealer stands, following the fixed house policy
+ * (draw below 17, and on a soft 17 under H17 rules); lanes whose round already ended are left untouched.
+ * Totals are packed as in {@link model.HandTotal}.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public interface DealerKernel {
+
+    /**
+     * Plays the dealer hand of every live lane to the end.
+     *
+     * @param dealerTotal the packed dealer total of every lane, updated in place
+     * @param live whether the dealer plays in each lane
+     * @param shoes the shoes of all lanes, one after another, as card values (off-heap, see {@link OffHeap})
+     * @param shoeSize the number of cards in one shoe
+     * @param cursor the position of the next card in every lane's shoe, updated in place
+     * @param lanes the number of lanes
+     */
+    void resolve(int[] dealerTotal, boolean[] live, MemorySegment shoes, int shoeSize, int[] cursor, int lanes);
+
+    /**
+     * Returns the fastest kernel available in this JVM: the vector kernel when the
+     * {@code jdk.incubator.vector} module is present (started with {@code --add-modules jdk.incubator.vector}),
+     * the scalar kernel otherwise.
+     *
+     * @param hitSoft17 whether the dealer hits a soft 17
+     * @return the dealer kernel
+     */
+    static DealerKernel best(boolean hitSoft17) {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            return new VectorDealerKernel(hitSoft17);
+        }
+        return new ScalarDealerKernel(hitSoft17);
+    }
+}
@@ -0,0 +1,48 @@
+package simulation;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Off-heap allocation for the large buffers of a simulation run (shoes, statistics blocks and output chunks),
+ * with the Foreign Function & Memory API. A run allocates everything from one {@link Arena} and closes it when it
+ * finishes, so gigabytes of shoes are neither scanned nor moved by the garbage collector and are freed at once.
+ * <p>
+ * Every buffer starts on a {@link #CACHE_LINE} boundary and its size is rounded up to a multiple of it,
+ * so buffers written by different threads never share a cache line (no false sharing).
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public final class OffHeap {
+
+    /**
+     * The alignment and padding of every buffer, in bytes: two 64-byte cache lines,
+     * since processors prefetch cache lines in adjacent pairs.
+     */
+    public static final int CACHE_LINE = 128;
+
+    private OffHeap() {
+    }
+
+    /**
+     * Allocates a zeroed buffer aligned to a cache line and padded to a whole number of cache lines.
+     *
+     * @param arena the arena that frees the buffer when it closes
+     * @param bytes the size needed, in bytes
+     * @return the buffer, at least {@code bytes} long
+     */
+    public static MemorySegment allocate(Arena arena, long bytes) {
+        return arena.allocate(pad(bytes), CACHE_LINE);
+    }
+
+    /**
+     * Rounds a size up to a whole number of cache lines.
+     *
+     * @param bytes the size, in bytes
+     * @return the padded size, at least one cache line
+     */
+    public static long pad(long bytes) {
+        return Math.max(CACHE_LINE, (bytes + CACHE_LINE - 1) / CACHE_LINE * CACHE_LINE);
+    }
+}
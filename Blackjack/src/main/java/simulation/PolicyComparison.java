@@ -0,0 +1,260 @@
+package simulation;
+
+import model.Deck;
+import model.ShoeSupplier;
+import model.Rules;
+import strategy.StrategyTable;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A/B comparison of two player policies on identical shoes.
+ * Shoes are shuffled by a {@link ShoeSupplier}, as at the table, and copied a batch at a time into {@link SharedShoes};
+ * the same batch is read by both policies, each played by its own evaluator on its own thread,
+ * while the next batch is prepared.
+ * After every step the two evaluators meet at a barrier, whose action pairs their rounds lane by lane and
+ * aligns their shoes ({@link BatchRoundEvaluator#synchronize(BatchRoundEvaluator)}), so every round of one policy
+ * starts from the same cards as the matching round of the other and the shared cards cancel most of the variance
+ * of the difference.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public final class PolicyComparison {
+
+    /**
+     * The number of shoes every lane plays per batch; more shoes per lane leave lanes idle for less of the batch.
+     */
+    public static final int SHOES_PER_LANE = 4;
+
+    private PolicyComparison() {
+    }
+
+    /**
+     * Plays the two policies of the options until the rounds run out or the difference is precise enough,
+     * printing the progress and the summary.
+     *
+     * @param rules the rules of the table
+     * @param options the simulation options, with two policies
+     * @param report the stream the progress and the summary are printed to
+     * @throws IOException if a policy cannot be read, or the comparison was interrupted
+     */
+    public static void run(Rules rules, SimulationOptions options, PrintStream report) throws IOException {
+        // Shared, as both policy threads read the shoes; everything off-heap is freed when the comparison ends
+        try (Arena arena = Arena.ofShared()) {
+            compare(rules, options, report, arena);
+        }
+    }
+
+    /**
+     * Plays the comparison with the shoes allocated from an arena.
+     *
+     * @param rules the rules of the table
+     * @param options the simulation options, with two policies
+     * @param report the stream the progress and the summary are printed to
+     * @param arena the arena of the run
+     * @throws IOException if a policy cannot be read, or the comparison was interrupted
+     */
+    private static void compare(Rules rules, SimulationOptions options, PrintStream report, Arena arena) throws IOException {
+        List<String> names = options.policies();
+        int lanes = options.lanes();
+        int batch = lanes * SHOES_PER_LANE;
+        PolicyRun first = new PolicyRun(rules, Simulator.strategy(names.get(0), rules), lanes, arena);
+        PolicyRun second = new PolicyRun(rules, Simulator.strategy(names.get(1), rules), lanes, arena);
+        Pairing pairing = new Pairing(first.evaluator, second.evaluator);
+        CyclicBarrier barrier = new CyclicBarrier(2, pairing);
+
+        // The shoes are the game's shoes for the seed, shuffled in the background
+        int shoeSize = new Deck(rules.decks()).cardsLeft();
+        SharedShoes[] buffers = {new SharedShoes(shoeSize, batch, arena), new SharedShoes(shoeSize, batch, arena)};
+        ShoeSupplier supplier = new ShoeSupplier(rules.decks(), options.seed(), 0);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService cores = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "policy-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long start = System.nanoTime();
+        long lastReport = start;
+        long shoes = 0;
+        boolean precise = false;
+        try (supplier) {
+            buffers[0].fill(supplier, batch);
+            for (int current = 0; ; current = 1 - current) {
+                SharedShoes batchShoes = buffers[current];
+                Future<?> firstDone = cores.submit(() -> first.play(batchShoes, barrier));
+                Future<?> secondDone = cores.submit(() -> second.play(batchShoes, barrier));
+
+                // Prepare the next batch while the policies play this one
+                buffers[1 - current].fill(supplier, batch);
+                firstDone.get();
+                secondDone.get();
+                shoes += batch;
+
+                Welford difference = pairing.difference;
+                if (System.nanoTime() - lastReport >= Simulator.REPORT_INTERVAL * 1_000_000) {
+                    lastReport = System.nanoTime();
+                    report.printf("%,15d rounds  difference %+.5f +/- %.5f%n",
+                            difference.getCount(), difference.getMean(), difference.halfWidth());
+                }
+                if (options.precision() > 0 && difference.getCount() >= Simulator.MIN_ROUNDS
+                        && difference.halfWidth() <= options.precision()) {
+                    precise = true;
+                    break;
+                }
+                if (difference.getCount() >= options.rounds()) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Policy comparison interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Policy run failed", e.getCause());
+        } finally {
+            cores.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Welford difference = pairing.difference;
+        report.printf("Rules: %s, seed %d%n", rules.id(), options.seed());
+        report.printf("Played %,d rounds per policy from %,d shoes in %.2f s%s%n", difference.getCount(), shoes, seconds,
+                precise ? ", stopped at the target precision" : "");
+        report.printf("%s: %+.5f +/- %.5f units per round%n", names.get(0),
+                pairing.firstResult.getMean(), pairing.firstResult.halfWidth());
+        report.printf("%s: %+.5f +/- %.5f units per round%n", names.get(1),
+                pairing.secondResult.getMean(), pairing.secondResult.halfWidth());
+        report.printf("Difference (%s - %s): %+.5f +/- %.5f units per round, 95%% CI (variance %.1fx lower than independent shoes)%n",
+                names.get(0), names.get(1), difference.getMean(), difference.halfWidth(),
+                (pairing.firstResult.variance() + pairing.secondResult.variance()) / Math.max(difference.variance(), Double.MIN_NORMAL));
+    }
+
+    /**
+     * The barrier action run after every step, while both policies wait:
+     * accumulates the paired results of the lanes that played, then aligns the shoes for the next step.
+     */
+    private static final class Pairing implements Runnable {
+
+        // Variables
+        private final BatchRoundEvaluator first, second;
+        private final Welford firstResult = new Welford(), secondResult = new Welford(), difference = new Welford();
+        private final double[] firstPayout, secondPayout, differences;
+
+        /**
+         * Constructs the pairing of two evaluators.
+         *
+         * @param first the evaluator of the first policy
+         * @param second the evaluator of the second policy
+         */
+        Pairing(BatchRoundEvaluator first, BatchRoundEvaluator second) {
+            this.first = first;
+            this.second = second;
+            this.firstPayout = new double[first.getLanes()];
+            this.secondPayout = new double[first.getLanes()];
+            this.differences = new double[first.getLanes()];
+        }
+
+        /**
+         * Pairs the rounds of the step and aligns the shoes.
+         */
+        @Override
+        public void run() {
+            boolean[] live = first.getLive();
+            int count = 0;
+            for (int lane = 0; lane < live.length; lane++) {
+                if (live[lane]) {
+                    firstPayout[count] = first.getPayout()[lane];
+                    secondPayout[count] = second.getPayout()[lane];
+                    differences[count] = firstPayout[count] - secondPayout[count];
+                    count++;
+                }
+            }
+            firstResult.addAll(firstPayout, count);
+            secondResult.addAll(secondPayout, count);
+            difference.addAll(differences, count);
+            first.synchronize(second);
+        }
+    }
+
+    /**
+     * One policy playing batches of shared shoes.
+     * Lane {@code i} plays the shoes {@code i}, {@code i + lanes}, {@code i + 2 * lanes}, ... of the batch.
+     */
+    private static final class PolicyRun implements ShoeSource {
+
+        // Variables
+        private final BatchRoundEvaluator evaluator;
+        private final int lanes;
+        private final int[] taken;
+        private SharedShoes shoes;
+
+        /**
+         * Constructs the run of a policy.
+         *
+         * @param rules the rules of the table
+         * @param strategy the policy
+         * @param lanes the number of lanes of the evaluator
+         * @param arena the arena of the run
+         */
+        PolicyRun(Rules rules, StrategyTable strategy, int lanes, Arena arena) {
+            this.lanes = lanes;
+            this.taken = new int[lanes];
+            this.evaluator = new BatchRoundEvaluator(rules, strategy, lanes, this, arena);
+        }
+
+        /**
+         * Plays every shoe of a batch to the cut card, meeting the other policy at the barrier after every step.
+         * Both evaluators go idle at the same step, as their shoes are aligned.
+         *
+         * @param batch the shoes to play, read only
+         * @param barrier the barrier shared with the other policy
+         * @return nothing, so the call can be submitted as a task that throws
+         * @throws InterruptedException if the wait at the barrier was interrupted
+         * @throws BrokenBarrierException if the other policy failed
+         */
+        Void play(SharedShoes batch, CyclicBarrier barrier) throws InterruptedException, BrokenBarrierException {
+            shoes = batch;
+            Arrays.fill(taken, 0);
+            evaluator.loadShoes();
+            while (!evaluator.isIdle()) {
+                evaluator.playRound();
+                barrier.await();
+            }
+            return null;
+        }
+
+        /**
+         * Copies the lane's next shoe of the batch.
+         *
+         * @param lane the lane asking for a shoe
+         * @param target the shoe storage of the evaluator
+         * @param offset the position of the lane's shoe in the storage
+         * @return true if the lane got a shoe, false if its shoes of the batch are played
+         */
+        @Override
+        public boolean next(int lane, MemorySegment target, long offset) {
+            int shoe = taken[lane] * lanes + lane;
+            if (shoe >= shoes.getCount()) {
+                return false;
+            }
+            taken[lane]++;
+            shoes.copy(shoe, target, offset);
+            return true;
+        }
+    }
+}
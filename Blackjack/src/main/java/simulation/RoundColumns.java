@@ -0,0 +1,105 @@
+package simulation;
+
+import lombok.Getter;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.List;
+
+/**
+ * A chunk of simulated rounds stored column by column, one byte per round in every column.
+ * Chunks are reused: the simulation fills one while the {@link ColumnarWriter} compresses another,
+ * so no buffers are allocated once a run is under way.
+ * The columns are off-heap slices of one segment, each starting on its own cache line ({@link OffHeap}).
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+@Getter
+public class RoundColumns {
+
+    /**
+     * The names of the columns, in file order. Totals are packed as in {@link model.HandTotal},
+     * the outcome is the ordinal of {@link model.Outcome} and the bet is in units (2 after doubling).
+     */
+    public static final List<String> NAMES = List.of("upcard", "initialTotal", "playerTotal", "dealerTotal", "outcome", "bet");
+
+    /**
+     * The index of each column in {@link #getColumns()}.
+     */
+    public static final int UPCARD = 0, INITIAL_TOTAL = 1, PLAYER_TOTAL = 2, DEALER_TOTAL = 3, OUTCOME = 4, BET = 5;
+
+    private static final ValueLayout.OfByte BYTE = ValueLayout.JAVA_BYTE;
+
+    // Variables
+    private final MemorySegment[] columns;
+    private final int capacity;
+    private int rows;
+
+    /**
+     * Constructs an empty chunk.
+     *
+     * @param capacity the number of rounds the chunk holds
+     * @param arena the arena the columns are allocated from
+     */
+    public RoundColumns(int capacity, Arena arena) {
+        this.capacity = capacity;
+        this.columns = new MemorySegment[NAMES.size()];
+        long stride = OffHeap.pad(capacity);
+        MemorySegment block = OffHeap.allocate(arena, stride * columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = block.asSlice(i * stride, capacity);
+        }
+    }
+
+    /**
+     * Copies the rounds of the first lanes of an evaluator, as left by its last {@link BatchRoundEvaluator#playRound()}.
+     *
+     * @param evaluator the evaluator holding the rounds
+     * @param count the number of lanes to copy, at most the space left in the chunk
+     */
+    public void append(BatchRoundEvaluator evaluator, int count) {
+        int[] upcard = evaluator.getUpcard();
+        int[] initialTotal = evaluator.getInitialTotal();
+        int[] playerTotal = evaluator.getPlayerTotal();
+        int[] dealerTotal = evaluator.getDealerTotal();
+        byte[] outcome = evaluator.getOutcome();
+        int[] bet = evaluator.getBet();
+        for (int lane = 0; lane < count; lane++) {
+            long row = rows + lane;
+            columns[UPCARD].set(BYTE, row, (byte) upcard[lane]);
+            columns[INITIAL_TOTAL].set(BYTE, row, (byte) initialTotal[lane]);
+            columns[PLAYER_TOTAL].set(BYTE, row, (byte) playerTotal[lane]);
+            columns[DEALER_TOTAL].set(BYTE, row, (byte) dealerTotal[lane]);
+            columns[OUTCOME].set(BYTE, row, outcome[lane]);
+            columns[BET].set(BYTE, row, (byte) bet[lane]);
+        }
+        rows += count;
+    }
+
+    /**
+     * Returns the number of rounds that still fit in the chunk.
+     *
+     * @return the free space, in rounds
+     */
+    public int remaining() {
+        return capacity - rows;
+    }
+
+    /**
+     * Sets the number of rounds held, after the columns were filled directly.
+     *
+     * @param rows the number of rounds
+     */
+    void setRows(int rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * Empties the chunk for reuse.
+     */
+    void clear() {
+        rows = 0;
+    }
+}
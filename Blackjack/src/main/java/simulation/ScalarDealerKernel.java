@@ -0,0 +1,61 @@
+package simulation;
+
+import model.HandTotal;
+import strategy.DealerOdds;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Dealer kernel resolving the lanes one card at a time, in lockstep, with plain Java arithmetic.
+ * Used when the Vector API is not available and as the reference for {@link VectorDealerKernel}.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public class ScalarDealerKernel implements DealerKernel {
+
+    // Variables
+    private final boolean[] draws = new boolean[2 * HandTotal.SOFT];
+
+    /**
+     * Constructs the kernel for a soft-17 rule.
+     *
+     * @param hitSoft17 whether the dealer hits a soft 17
+     */
+    public ScalarDealerKernel(boolean hitSoft17) {
+        for (int total = 0; total < draws.length; total++) {
+            draws[total] = DealerOdds.dealerDraws(total, hitSoft17);
+        }
+    }
+
+    @Override
+    public void resolve(int[] dealerTotal, boolean[] live, MemorySegment shoes, int shoeSize, int[] cursor, int lanes) {
+        resolve(dealerTotal, live, shoes, shoeSize, cursor, 0, lanes);
+    }
+
+    /**
+     * Plays the dealer hand of every live lane in a range of lanes to the end.
+     *
+     * @param dealerTotal the packed dealer total of every lane, updated in place
+     * @param live whether the dealer plays in each lane
+     * @param shoes the shoes of all lanes, one after another, as card values (off-heap, see {@link OffHeap})
+     * @param shoeSize the number of cards in one shoe
+     * @param cursor the position of the next card in every lane's shoe, updated in place
+     * @param from the first lane to resolve
+     * @param to the lane after the last one to resolve
+     */
+    public void resolve(int[] dealerTotal, boolean[] live, MemorySegment shoes, int shoeSize, int[] cursor, int from, int to) {
+        boolean any = true;
+        while (any) {
+            any = false;
+            for (int lane = from; lane < to; lane++) {
+                if (live[lane] && draws[dealerTotal[lane]]) {
+                    byte card = shoes.get(ValueLayout.JAVA_BYTE, (long) lane * shoeSize + cursor[lane]++);
+                    dealerTotal[lane] = HandTotal.add(dealerTotal[lane], card);
+                    any = true;
+                }
+            }
+        }
+    }
+}
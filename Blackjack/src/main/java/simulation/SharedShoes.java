@@ -0,0 +1,72 @@
+package simulation;
+
+import lombok.Getter;
+import model.Card;
+import model.ShoeSupplier;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * A batch of shuffled shoes, stored off-heap as card values one after the other.
+ * The shoes come from a {@link ShoeSupplier}, so they are the game's shoes for the same seed,
+ * and are copied once per batch; several evaluators then read them concurrently without copying the batch.
+ * The batch lives in the arena of the run ({@link OffHeap}) and is freed when the run ends.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+@Getter
+public class SharedShoes {
+
+    // Variables
+    private final int shoeSize;
+    private final int capacity;
+    private final MemorySegment values;
+    private int count;
+
+    /**
+     * Constructs an empty batch.
+     *
+     * @param shoeSize the number of cards in a shoe
+     * @param capacity the number of shoes the batch holds
+     * @param arena the arena of the run
+     */
+    public SharedShoes(int shoeSize, int capacity, Arena arena) {
+        this.shoeSize = shoeSize;
+        this.capacity = capacity;
+        this.values = OffHeap.allocate(arena, (long) shoeSize * capacity);
+    }
+
+    /**
+     * Refills the batch with the next shoes of a supplier.
+     *
+     * @param supplier the supplier of shuffled shoes, seeded so the batches are reproducible
+     * @param shoes the number of shoes to copy, at most the capacity
+     * @throws InterruptedException if the wait for a shoe was interrupted
+     */
+    public void fill(ShoeSupplier supplier, int shoes) throws InterruptedException {
+        byte[] cardValues = BatchRoundEvaluator.CARD_VALUES;
+        for (int shoe = 0; shoe < shoes; shoe++) {
+            Card[] cards = supplier.take().cards();
+            long base = (long) shoe * shoeSize;
+            for (int i = 0; i < shoeSize; i++) {
+                values.set(ValueLayout.JAVA_BYTE, base + i, cardValues[cards[i].index()]);
+            }
+            supplier.recycle(cards);
+        }
+        count = shoes;
+    }
+
+    /**
+     * Copies a shoe of the batch.
+     *
+     * @param shoe the index of the shoe in the batch
+     * @param target the segment to copy to
+     * @param offset the position in the target
+     */
+    public void copy(int shoe, MemorySegment target, long offset) {
+        MemorySegment.copy(values, (long) shoe * shoeSize, target, offset, shoeSize);
+    }
+}
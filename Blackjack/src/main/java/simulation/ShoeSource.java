@@ -0,0 +1,25 @@
+package simulation;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Supplies prepared shoes to a {@link BatchRoundEvaluator} instead of letting every lane shuffle its own,
+ * so several evaluators can play exactly the same shoes.
+ * A lane plays its shoe round by round until the cut card and then asks for the next one;
+ * a lane without a next shoe stays idle until {@link BatchRoundEvaluator#loadShoes()} is called again.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public interface ShoeSource {
+
+    /**
+     * Copies the next shoe of a lane into the evaluator's shoe storage.
+     *
+     * @param lane the lane asking for a shoe
+     * @param shoes the off-heap shoe storage of the evaluator, card values
+     * @param offset the position of the lane's shoe in the storage
+     * @return true if a shoe was copied, false if the lane has no more shoes
+     */
+    boolean next(int lane, MemorySegment shoes, long offset);
+}
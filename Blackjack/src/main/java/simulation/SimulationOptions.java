@@ -0,0 +1,107 @@
+package simulation;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * The options of a command-line simulation, read from "--" flags next to the rule options of {@link model.Rules}.
+ *
+ * @param rounds the most rounds to play
+ * @param lanes the number of rounds an evaluator plays per step
+ * @param seed the seed of the first shoe
+ * @param out the file the rounds are written to, or null to only print the summary
+ * @param threads the number of worker threads
+ * @param precision the 95% confidence half-width at which the simulation stops early, or 0 to play every round
+ * @param compare the strategy played against the basic strategy (see {@link Simulator#strategy(String, model.Rules)}), or null
+ * @param independent whether the compared strategy plays its own shoes instead of the same ones (no common random numbers)
+ * @param policies the two policies of an A/B comparison on shared shoes, or an empty list
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public record SimulationOptions(long rounds, int lanes, long seed, Path out, int threads, double precision,
+                                String compare, boolean independent, List<String> policies) {
+
+    /**
+     * The number of lanes when none is given.
+     */
+    public static final int DEFAULT_LANES = 4096;
+
+    /**
+     * The flags read by the simulation, besides the rule flags.
+     */
+    public static final Set<String> FLAGS = Set.of("simulate", "dump", "lanes", "seed", "out", "threads", "precision",
+            "compare", "independent", "ab");
+
+    /**
+     * Validates the options.
+     */
+    public SimulationOptions {
+        if (rounds < 1) {
+            throw new IllegalArgumentException("The number of rounds must be positive: " + rounds);
+        }
+        if (rounds == Long.MAX_VALUE && precision <= 0) {
+            throw new IllegalArgumentException("A simulation without a number of rounds needs a target --precision");
+        }
+        if (lanes < 1) {
+            throw new IllegalArgumentException("The number of lanes must be positive: " + lanes);
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be positive: " + threads);
+        }
+        if (precision < 0) {
+            throw new IllegalArgumentException("The precision cannot be negative: " + precision);
+        }
+        if (!policies.isEmpty() && policies.size() != 2) {
+            throw new IllegalArgumentException("An A/B comparison takes two policies: " + policies);
+        }
+    }
+
+    /**
+     * Reads the options from command-line flags: {@code --simulate=<rounds>} (plain or in scientific notation, e.g. 1e9,
+     * or just {@code --simulate} to play until the target precision), {@code --out=<file>}, {@code --lanes=<n>},
+     * {@code --seed=<n>}, {@code --threads=<n>} (all processors by default), {@code --precision=<half-width>},
+     * {@code --compare=<strategy>}, {@code --independent} and {@code --ab=<strategy>,<strategy>}.
+     * Without a seed a random one is used.
+     * Other arguments are left to the rest of the application.
+     *
+     * @param args the command-line arguments
+     * @return the simulation options
+     * @throws IllegalArgumentException if a flag has an invalid value
+     */
+    public static SimulationOptions parse(String[] args) {
+        long rounds = 0;
+        int lanes = DEFAULT_LANES;
+        long seed = new Random().nextLong();
+        Path out = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        double precision = 0;
+        String compare = null;
+        boolean independent = false;
+        List<String> policies = List.of();
+
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                continue;
+            }
+            String name = arg.contains("=") ? arg.substring(2, arg.indexOf('=')) : arg.substring(2);
+            String value = arg.contains("=") ? arg.substring(arg.indexOf('=') + 1) : "";
+            switch (name) {
+                case "simulate" -> rounds = value.isEmpty() ? Long.MAX_VALUE : (long) Double.parseDouble(value);
+                case "lanes" -> lanes = Integer.parseInt(value);
+                case "seed" -> seed = Long.parseLong(value);
+                case "out" -> out = Path.of(value);
+                case "threads" -> threads = Integer.parseInt(value);
+                case "precision" -> precision = Double.parseDouble(value);
+                case "compare" -> compare = value;
+                case "independent" -> independent = true;
+                case "ab" -> policies = List.of(value.split(","));
+                default -> {
+                    // Rule options and flags of other components
+                }
+            }
+        }
+        return new SimulationOptions(rounds, lanes, seed, out, threads, precision, compare, independent, policies);
+    }
+}
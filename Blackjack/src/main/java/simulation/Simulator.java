@@ -0,0 +1,373 @@
+package simulation;
+
+import model.Rules;
+import strategy.StrategyTable;
+import strategy.StrategyTableGenerator;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The command-line simulation mode: plays rounds with the {@link BatchRoundEvaluator}
+ * and the basic strategy of the rules, optionally streaming every round to a columnar file
+ * ({@link ColumnarWriter}), and prints a summary. Started from {@code Blackjack} with {@code --simulate=<rounds>};
+ * {@code --dump=<file>} prints a simulation file as CSV instead, and {@code --ab=<strategy>,<strategy>} runs a
+ * {@link PolicyComparison}.
+ * <p>
+ * Worker threads play their own lanes and keep their own {@link Welford} accumulators, which are merged
+ * for a live 95% confidence interval of the result. With a target precision the run stops as soon as the interval
+ * is narrow enough. A second strategy can be compared on the same shoes (common random numbers):
+ * its evaluator is aligned with the first one after every round, so the paired difference has far less variance
+ * than the difference of two independent runs.
+ * <p>
+ * The shoes, the accumulators the workers publish ({@link StatsBlocks}) and the output chunks are off-heap,
+ * allocated from one arena per run and freed as soon as the run ends.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public final class Simulator {
+
+    /**
+     * The number of rounds per chunk of the output file, rounded down to a multiple of the lanes.
+     */
+    public static final int CHUNK_ROWS = 1 << 20;
+
+    /**
+     * The number of chunks the writer cycles through, at least two more than the worker threads.
+     */
+    public static final int CHUNK_BUFFERS = 4;
+
+    /**
+     * The fewest rounds before the run may stop early, so a lucky start cannot look precise.
+     */
+    public static final long MIN_ROUNDS = 100_000;
+
+    /**
+     * How often the precision is checked, in milliseconds.
+     */
+    public static final long CHECK_INTERVAL = 50;
+
+    /**
+     * How often the progress is printed, in milliseconds.
+     */
+    public static final long REPORT_INTERVAL = 1000;
+
+    private Simulator() {
+    }
+
+    /**
+     * Runs the simulation, or the CSV dump, described by the command-line flags.
+     *
+     * @param args the command-line arguments, see {@link SimulationOptions#parse(String[])} and {@link Rules#parse(String[])}
+     */
+    public static void main(String[] args) {
+        try {
+            for (String arg : args) {
+                if (arg.startsWith("--dump=")) {
+                    ColumnarReader.dumpCsv(Path.of(arg.substring("--dump=".length())), System.out);
+                    return;
+                }
+            }
+            Rules rules = Rules.parse(args, SimulationOptions.FLAGS);
+            SimulationOptions options = SimulationOptions.parse(args);
+            if (options.policies().isEmpty()) {
+                run(rules, options, System.out);
+            } else {
+                PolicyComparison.run(rules, options, System.out);
+            }
+        } catch (IllegalArgumentException | IOException | UncheckedIOException e) {
+            System.err.println("Simulation failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Plays the rounds, printing the progress and the summary.
+     *
+     * @param rules the rules of the table
+     * @param options the simulation options
+     * @param report the stream the progress and the summary are printed to
+     * @throws IOException if the compared strategy cannot be read or the output file cannot be written
+     */
+    public static void run(Rules rules, SimulationOptions options, PrintStream report) throws IOException {
+        // Shared, as the workers and the writer thread use the buffers; everything off-heap is freed when the run ends
+        try (Arena arena = Arena.ofShared()) {
+            simulate(rules, options, report, arena);
+        }
+    }
+
+    /**
+     * Plays the rounds with the buffers allocated from an arena.
+     *
+     * @param rules the rules of the table
+     * @param options the simulation options
+     * @param report the stream the progress and the summary are printed to
+     * @param arena the arena of the run
+     * @throws IOException if the compared strategy cannot be read or the output file cannot be written
+     */
+    private static void simulate(Rules rules, SimulationOptions options, PrintStream report, Arena arena) throws IOException {
+        int lanes = options.lanes();
+        StrategyTable strategy = StrategyTable.load(rules);
+        StrategyTable compared = options.compare() == null ? null : strategy(options.compare(), rules);
+        ColumnarWriter writer = options.out() == null ? null
+                : new ColumnarWriter(options.out(), rules.toString(), lanes * Math.max(1, CHUNK_ROWS / lanes),
+                Math.max(CHUNK_BUFFERS, options.threads() + 2), arena);
+
+        // Every worker plays its own lanes; independent comparison shoes come after all of them
+        AtomicLong claimed = new AtomicLong();
+        AtomicBoolean stop = new AtomicBoolean();
+        StatsBlocks stats = new StatsBlocks(arena, options.threads(), 3);
+        List<Worker> workers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < options.threads(); i++) {
+            long seed = options.seed() + (long) i * lanes;
+            long comparedSeed = options.independent() ? seed + (long) options.threads() * lanes : seed;
+            Worker worker = new Worker(i, rules, strategy, seed, compared, comparedSeed, options, claimed, stop, stats,
+                    writer, arena);
+            Thread thread = new Thread(worker, "simulation-" + i);
+            workers.add(worker);
+            threads.add(thread);
+        }
+
+        long start = System.nanoTime();
+        long lastReport = start;
+        boolean precise = false;
+        Snapshot total;
+        try {
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                while (thread.isAlive()) {
+                    thread.join(CHECK_INTERVAL);
+
+                    // Merge the latest accumulators of the workers
+                    total = merge(stats, options.threads());
+                    Welford target = compared != null ? total.difference() : total.result();
+                    if (!precise && options.precision() > 0 && target.getCount() >= MIN_ROUNDS
+                            && target.halfWidth() <= options.precision()) {
+                        precise = true;
+                        stop.set(true);
+                    }
+                    if (System.nanoTime() - lastReport >= REPORT_INTERVAL * 1_000_000) {
+                        lastReport = System.nanoTime();
+                        report.println(progress(total));
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            stop.set(true);
+            Thread.currentThread().interrupt();
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+        for (Worker worker : workers) {
+            if (worker.failure != null) {
+                throw worker.failure;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        total = merge(stats, options.threads());
+        long played = total.result().getCount();
+
+        report.printf("Rules: %s, seed %d, %d thread(s)%n", rules.id(), options.seed(), options.threads());
+        report.printf("Played %,d rounds in %.2f s (%,.0f rounds/s)%s%n", played, seconds, played / seconds,
+                precise ? ", stopped at the target precision" : "");
+        report.printf("Player result: %+.5f +/- %.5f units per round, 95%% CI (house edge %.3f%%)%n",
+                total.result().getMean(), total.result().halfWidth(), -100 * total.result().getMean());
+        if (compared != null) {
+            report.printf("Compared strategy: %+.5f +/- %.5f units per round%n",
+                    total.compared().getMean(), total.compared().halfWidth());
+            report.printf("Difference (basic - compared): %+.5f +/- %.5f units per round, %s%n",
+                    total.difference().getMean(), total.difference().halfWidth(),
+                    options.independent() ? "independent shoes" : String.format("common random numbers (variance %.1fx lower than independent)",
+                            (total.result().variance() + total.compared().variance()) / total.difference().variance()));
+        }
+        if (writer != null) {
+            report.printf("Wrote %s: %,d bytes (%.2f bytes per round), writer busy %.1f%% of the run%n",
+                    options.out(), writer.getBytesWritten(), (double) writer.getBytesWritten() / played,
+                    100 * writer.getBusyNanos() / 1e9 / seconds);
+        }
+    }
+
+    /**
+     * Returns a strategy by name: "basic" for the basic strategy of the rules, "mimic" for the dealer-mimic policy,
+     * or otherwise the path of a strategy table file.
+     *
+     * @param name the name of the strategy
+     * @param rules the rules of the table
+     * @return the strategy table
+     * @throws IOException if the strategy table file cannot be read
+     */
+    public static StrategyTable strategy(String name, Rules rules) throws IOException {
+        switch (name) {
+            case "basic" -> {
+                return StrategyTable.load(rules);
+            }
+            case "mimic" -> {
+                return StrategyTableGenerator.dealerMimic(rules);
+            }
+            default -> {
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(Path.of(name)))) {
+                    return StrategyTable.read(in);
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the accumulators last published by the workers.
+     *
+     * @param stats the blocks the workers publish to
+     * @param threads the number of workers
+     * @return the merged accumulators
+     */
+    private static Snapshot merge(StatsBlocks stats, int threads) {
+        Snapshot total = new Snapshot(new Welford(), new Welford(), new Welford());
+        for (int thread = 0; thread < threads; thread++) {
+            stats.mergeInto(thread, total.result(), total.compared(), total.difference());
+        }
+        return total;
+    }
+
+    /**
+     * Formats a progress line.
+     *
+     * @param total the merged accumulators
+     * @return the progress line
+     */
+    private static String progress(Snapshot total) {
+        String line = String.format("%,15d rounds  result %+.5f +/- %.5f", total.result().getCount(),
+                total.result().getMean(), total.result().halfWidth());
+        if (total.difference().getCount() > 0) {
+            line += String.format("  difference %+.5f +/- %.5f", total.difference().getMean(), total.difference().halfWidth());
+        }
+        return line;
+    }
+
+    /**
+     * The accumulators of the workers, merged.
+     *
+     * @param result the results of the basic strategy
+     * @param compared the results of the compared strategy (empty without one)
+     * @param difference the paired differences of the two (empty without a compared strategy)
+     */
+    private record Snapshot(Welford result, Welford compared, Welford difference) {
+    }
+
+    /**
+     * Plays lanes of rounds until the rounds run out or the simulation is stopped.
+     */
+    private static final class Worker implements Runnable {
+
+        // Variables
+        private final int index;
+        private final BatchRoundEvaluator evaluator, comparison;
+        private final boolean synchronize;
+        private final long rounds;
+        private final AtomicLong claimed;
+        private final AtomicBoolean stop;
+        private final StatsBlocks stats;
+        private final ColumnarWriter writer;
+        private final Welford result = new Welford(), compared = new Welford(), difference = new Welford();
+        private final double[] differences;
+        private volatile IOException failure;
+
+        /**
+         * Constructs a worker.
+         *
+         * @param index the index of the worker, and of its statistics block
+         * @param rules the rules of the table
+         * @param strategy the basic strategy
+         * @param seed the first seed of the worker's shoes
+         * @param comparedStrategy the compared strategy, or null
+         * @param comparedSeed the first seed of the compared strategy's shoes
+         * @param options the simulation options
+         * @param claimed the number of rounds claimed by all workers
+         * @param stop set when the simulation must stop
+         * @param stats the blocks the workers publish their accumulators to
+         * @param writer the output file, or null
+         * @param arena the arena of the run
+         */
+        Worker(int index, Rules rules, StrategyTable strategy, long seed, StrategyTable comparedStrategy, long comparedSeed,
+               SimulationOptions options, AtomicLong claimed, AtomicBoolean stop, StatsBlocks stats, ColumnarWriter writer,
+               Arena arena) {
+            this.index = index;
+            this.evaluator = new BatchRoundEvaluator(rules, strategy, options.lanes(), seed, arena);
+            this.comparison = comparedStrategy == null ? null
+                    : new BatchRoundEvaluator(rules, comparedStrategy, options.lanes(), comparedSeed, arena);
+            this.synchronize = comparison != null && comparedSeed == seed;
+            this.differences = new double[options.lanes()];
+            this.rounds = options.rounds();
+            this.claimed = claimed;
+            this.stop = stop;
+            this.stats = stats;
+            this.writer = writer;
+        }
+
+        /**
+         * Plays steps until the rounds run out or the simulation is stopped.
+         */
+        @Override
+        public void run() {
+            int lanes = evaluator.getLanes();
+            RoundColumns chunk = null;
+            try {
+                while (!stop.get()) {
+                    long first = claimed.getAndAdd(lanes);
+                    int count = (int) Math.min(lanes, rounds - first);
+                    if (count <= 0) {
+                        break;
+                    }
+                    evaluator.playRound();
+                    result.addAll(evaluator.getPayout(), count);
+
+                    // The compared strategy plays the same deals, then both continue from the same card
+                    if (comparison != null) {
+                        comparison.playRound();
+                        double[] payout = evaluator.getPayout();
+                        double[] comparedPayout = comparison.getPayout();
+                        for (int lane = 0; lane < count; lane++) {
+                            differences[lane] = payout[lane] - comparedPayout[lane];
+                        }
+                        compared.addAll(comparedPayout, count);
+                        difference.addAll(differences, count);
+                        if (synchronize) {
+                            evaluator.synchronize(comparison);
+                        }
+                    }
+                    stats.publish(index, result, compared, difference);
+
+                    // Hand full chunks over to the writer thread
+                    if (writer != null) {
+                        if (chunk == null) {
+                            chunk = writer.take();
+                        }
+                        chunk.append(evaluator, count);
+                        if (chunk.remaining() < lanes) {
+                            writer.submit(chunk);
+                            chunk = null;
+                        }
+                    }
+                }
+                if (chunk != null) {
+                    writer.submit(chunk);
+                }
+            } catch (IOException e) {
+                failure = e;
+                stop.set(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package simulation;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+
+/**
+ * The statistics the worker threads publish while they play, in one off-heap segment with a block per thread.
+ * A block holds a sequence number followed by the count, mean and squared deviations of each {@link Welford}
+ * accumulator of its thread, and is padded to whole cache lines ({@link OffHeap}), so a worker publishing after
+ * every step never invalidates the cache line of another one.
+ * <p>
+ * Every block has a single writer and is read as a sequence lock: the writer makes the sequence odd, writes the
+ * accumulators and makes it even again; a reader retries until it saw the same even sequence before and after
+ * reading, so it always gets the accumulators of one step, never half of two.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public class StatsBlocks {
+
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG;
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE;
+
+    // The sequence, then count, mean and m2 per accumulator
+    private static final long SEQUENCE = 0, FIRST = Long.BYTES, ACCUMULATOR = 3 * Long.BYTES;
+
+    // Variables
+    private final MemorySegment blocks;
+    private final int accumulators;
+    private final long blockSize;
+
+    /**
+     * Allocates a zeroed block for every thread.
+     *
+     * @param arena the arena of the run
+     * @param threads the number of threads
+     * @param accumulators the number of accumulators every thread publishes
+     */
+    public StatsBlocks(Arena arena, int threads, int accumulators) {
+        this.accumulators = accumulators;
+        this.blockSize = OffHeap.pad(FIRST + accumulators * ACCUMULATOR);
+        this.blocks = OffHeap.allocate(arena, threads * blockSize);
+    }
+
+    /**
+     * Publishes the accumulators of a thread. Only that thread may call it.
+     *
+     * @param thread the index of the thread
+     * @param values the accumulators, as many as the blocks hold
+     */
+    public void publish(int thread, Welford... values) {
+        long base = thread * blockSize;
+        long sequence = blocks.get(LONG, base + SEQUENCE);
+        blocks.set(LONG, base + SEQUENCE, sequence + 1);
+        VarHandle.storeStoreFence();
+        for (int i = 0; i < accumulators; i++) {
+            long offset = base + FIRST + i * ACCUMULATOR;
+            blocks.set(LONG, offset, values[i].getCount());
+            blocks.set(DOUBLE, offset + Long.BYTES, values[i].getMean());
+            blocks.set(DOUBLE, offset + 2 * Long.BYTES, values[i].getM2());
+        }
+        VarHandle.releaseFence();
+        blocks.set(LONG, base + SEQUENCE, sequence + 2);
+    }
+
+    /**
+     * Merges the last accumulators published by a thread into totals.
+     *
+     * @param thread the index of the thread
+     * @param totals the totals, as many as the blocks hold
+     */
+    public void mergeInto(int thread, Welford... totals) {
+        long base = thread * blockSize;
+        long[] count = new long[accumulators];
+        double[] mean = new double[accumulators];
+        double[] m2 = new double[accumulators];
+        while (true) {
+            long sequence = blocks.get(LONG, base + SEQUENCE);
+            VarHandle.acquireFence();
+            for (int i = 0; i < accumulators; i++) {
+                long offset = base + FIRST + i * ACCUMULATOR;
+                count[i] = blocks.get(LONG, offset);
+                mean[i] = blocks.get(DOUBLE, offset + Long.BYTES);
+                m2[i] = blocks.get(DOUBLE, offset + 2 * Long.BYTES);
+            }
+            VarHandle.loadLoadFence();
+            if ((sequence & 1) == 0 && blocks.get(LONG, base + SEQUENCE) == sequence) {
+                break;
+            }
+            Thread.onSpinWait();
+        }
+        for (int i = 0; i < accumulators; i++) {
+            totals[i].merge(count[i], mean[i], m2[i]);
+        }
+    }
+}
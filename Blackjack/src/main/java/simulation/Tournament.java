@@ -0,0 +1,471 @@
+package simulation;
+
+import lombok.Getter;
+import model.Card;
+import model.Dealer;
+import model.Deck;
+import model.Hand;
+import model.Outcome;
+import model.Player;
+import model.Rules;
+import strategy.Action;
+import strategy.BasicStrategyPolicy;
+import strategy.PlayerPolicy;
+import strategy.RuleTables;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Elimination tournament of bot players.
+ * Every round seats the remaining bots at tables of up to {@code --seats} players; each starts the round with the same
+ * bankroll and plays a fixed number of hands of one unit, and the bot with the largest bankroll at every table advances,
+ * until one is left. The tables are played with the game's own model, a shuffled {@link Deck}, {@link Player} hands and
+ * a {@link Dealer} drawing by the rules, each on its own virtual thread: the virtual threads run on the JVM's
+ * work-stealing scheduler, so a round of any number of tables keeps every core busy.
+ * <p>
+ * The bots follow pluggable policies, given with {@code --bots=<policy,...>} and dealt out in turn: any strategy
+ * {@link Simulator#strategy(String, Rules)} knows ("basic", "mimic" or a table file), or "never-bust", which stands on
+ * every hand that could bust. A table is shuffled from the seed, its round and its number, so a seed replays the
+ * whole tournament.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public class Tournament {
+
+    /**
+     * The default number of bots.
+     */
+    public static final int DEFAULT_BOTS = 500;
+
+    /**
+     * The default number of seats at a table.
+     */
+    public static final int DEFAULT_SEATS = 5;
+
+    /**
+     * The default number of hands played at a table.
+     */
+    public static final int DEFAULT_HANDS = 100;
+
+    /**
+     * The default bankroll of a bot at the start of every round, in units.
+     */
+    public static final int DEFAULT_BANKROLL = 100;
+
+    /**
+     * The number of bots shown on the leaderboard.
+     */
+    public static final int LEADERBOARD = 10;
+
+    /**
+     * Runs a tournament with the table rules and tournament options from the command line.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        try {
+            run(Rules.parse(args, Options.FLAGS), Options.parse(args), System.out);
+        } catch (IllegalArgumentException | IOException | UncheckedIOException e) {
+            System.err.println("Tournament failed: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            System.err.println("Tournament interrupted");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Plays the rounds until one bot is left, printing every round and the final leaderboard.
+     *
+     * @param rules the rules of the tables
+     * @param options the tournament options
+     * @param report the stream the progress and the leaderboard are printed to
+     * @throws IOException if a strategy table file cannot be read
+     * @throws InterruptedException if the tournament was interrupted
+     */
+    public static void run(Rules rules, Options options, PrintStream report) throws IOException, InterruptedException {
+        RuleTables tables = RuleTables.of(rules);
+
+        // Every policy is loaded once and shared by its bots; policies are read-only
+        Map<String, PlayerPolicy> policies = new LinkedHashMap<>();
+        for (String name : options.policies()) {
+            policies.put(name, name.equals("never-bust")
+                    ? (total, soft, upcard, firstDecision) -> total < 12 || soft && total < 18 ? Action.HIT : Action.STAND
+                    : new BasicStrategyPolicy(Simulator.strategy(name, rules)));
+        }
+        List<Bot> bots = new ArrayList<>(options.bots());
+        for (int i = 0; i < options.bots(); i++) {
+            String policy = options.policies().get(i % options.policies().size());
+            bots.add(new Bot("bot-" + (i + 1), policy, policies.get(policy)));
+        }
+
+        report.printf("Rules: %s, seed %d, %d bots (%s), %d seats, %d hands per table%n", rules.id(), options.seed(),
+                options.bots(), String.join(", ", policies.keySet()), options.seats(), options.hands());
+        long start = System.nanoTime();
+        long tablesPlayed = 0;
+        List<Bot> field = new ArrayList<>(bots);
+        for (int round = 1; field.size() > 1; round++) {
+            long roundStart = System.nanoTime();
+            Collections.shuffle(field, new Random(options.seed() ^ round));
+            field = playRound(field, round, tables, options);
+
+            // A table per winner
+            tablesPlayed += field.size();
+            report.printf("Round %d: %,d tables, %,d bots advance (%.2f s)%n", round, field.size(), field.size(),
+                    (System.nanoTime() - roundStart) / 1e9);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long hands = bots.stream().mapToLong(Bot::getHands).sum();
+        report.printf("Played %,d tables and %,d hands in %.2f s (%,.0f hands per second)%n",
+                tablesPlayed, hands, seconds, hands / seconds);
+        leaderboard(bots, report);
+    }
+
+    /**
+     * Plays a round: seats the bots at tables, plays every table on its own virtual thread and keeps the table winners.
+     *
+     * @param field the bots still in the tournament, in seating order
+     * @param round the number of the round, from 1
+     * @param tables the tables of the rules
+     * @param options the tournament options
+     * @return the bots advancing to the next round
+     * @throws InterruptedException if the round was interrupted
+     */
+    private static List<Bot> playRound(List<Bot> field, int round, RuleTables tables, Options options)
+            throws InterruptedException {
+        // As few tables as the seats allow, filled evenly
+        int count = (field.size() + options.seats() - 1) / options.seats();
+        List<List<Bot>> seating = new ArrayList<>(count);
+        for (int table = 0; table < count; table++) {
+            seating.add(new ArrayList<>(options.seats()));
+        }
+        for (int i = 0; i < field.size(); i++) {
+            seating.get(i % count).add(field.get(i));
+        }
+
+        List<Future<Bot>> winners = new ArrayList<>(count);
+        try (ExecutorService scheduler = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int table = 0; table < count; table++) {
+                List<Bot> seated = seating.get(table);
+                long seed = tableSeed(options.seed(), round, table);
+                // The shoe is built and shuffled on the table's own thread too
+                winners.add(scheduler.submit(() -> new Table(tables, seated, seed).play(options.hands(), options.bankroll())));
+            }
+            List<Bot> next = new ArrayList<>(count);
+            for (Future<Bot> winner : winners) {
+                Bot bot = winner.get();
+                bot.won(round);
+                next.add(bot);
+            }
+            return next;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A table failed", e.getCause());
+        }
+    }
+
+    /**
+     * Prints the bots that went furthest, best bankroll first, and how far every policy got on average.
+     *
+     * @param bots all bots of the tournament
+     * @param report the stream to print to
+     */
+    private static void leaderboard(List<Bot> bots, PrintStream report) {
+        List<Bot> ranking = new ArrayList<>(bots);
+        ranking.sort(Comparator.comparingInt(Bot::getWins).thenComparingDouble(Bot::getBankroll).reversed()
+                .thenComparing(Bot::getName));
+        report.println("Leaderboard:");
+        for (int i = 0; i < Math.min(LEADERBOARD, ranking.size()); i++) {
+            Bot bot = ranking.get(i);
+            report.printf("%3d. %-12s %-12s won %d round(s), last bankroll %.1f, %+.4f units per hand%n", i + 1,
+                    bot.getName(), bot.getPolicy(), bot.getWins(), bot.getBankroll(), bot.getNet() / Math.max(1, bot.getHands()));
+        }
+
+        // Per policy: rounds won and result per hand
+        Map<String, double[]> policies = new LinkedHashMap<>();
+        for (Bot bot : bots) {
+            double[] sums = policies.computeIfAbsent(bot.getPolicy(), policy -> new double[4]);
+            sums[0]++;
+            sums[1] += bot.getWins();
+            sums[2] += bot.getNet();
+            sums[3] += bot.getHands();
+        }
+        report.println("Policies:");
+        policies.forEach((policy, sums) -> report.printf("     %-12s %,d bots, %.2f rounds won on average, %+.4f units per hand%n",
+                policy, (long) sums[0], sums[1] / sums[0], sums[2] / Math.max(1, sums[3])));
+    }
+
+    /**
+     * Returns the seed of a table, so every table of every round gets its own shoe.
+     *
+     * @param seed the seed of the tournament
+     * @param round the round
+     * @param table the number of the table in the round
+     * @return the seed of the table's deck
+     */
+    private static long tableSeed(long seed, int round, int table) {
+        return Deck.shuffleSeed(seed, ((long) round << 32) + table);
+    }
+
+    /**
+     * A table of a round: the bots seated at it, a shoe and a dealer. Played on one thread.
+     */
+    private static class Table {
+
+        // Variables
+        private final RuleTables tables;
+        private final List<Bot> bots;
+        private final Player[] seats;
+        private final double[] bankrolls, bets;
+        private final boolean[] seated;
+        private final Outcome[] outcomes;
+        private final Deck deck;
+        private final Dealer dealer = new Dealer();
+
+        /**
+         * Seats bots at a table with a freshly shuffled shoe.
+         *
+         * @param tables the tables of the rules
+         * @param bots the bots, in seating order
+         * @param seed the seed of the shoe
+         */
+        Table(RuleTables tables, List<Bot> bots, long seed) {
+            this.tables = tables;
+            this.bots = bots;
+            this.seats = new Player[bots.size()];
+            this.bankrolls = new double[bots.size()];
+            // Reused by every hand
+            this.bets = new double[bots.size()];
+            this.seated = new boolean[bots.size()];
+            this.outcomes = new Outcome[bots.size()];
+            for (int seat = 0; seat < seats.length; seat++) {
+                seats[seat] = new Player(bots.get(seat).getName());
+            }
+            deck = new Deck(tables.getRules().decks());
+            deck.restore(deck.cards(), seed, 0);
+            deck.shuffle();
+        }
+
+        /**
+         * Plays the hands and returns the winner.
+         *
+         * @param hands the number of hands
+         * @param bankroll the bankroll every bot starts with
+         * @return the bot with the largest bankroll, the first seated on a tie
+         */
+        Bot play(int hands, int bankroll) {
+            Arrays.fill(bankrolls, bankroll);
+            for (int hand = 0; hand < hands; hand++) {
+                playHand();
+            }
+            int winner = 0;
+            for (int seat = 0; seat < seats.length; seat++) {
+                bots.get(seat).setBankroll(bankrolls[seat]);
+                if (bankrolls[seat] > bankrolls[winner]) {
+                    winner = seat;
+                }
+            }
+            return bots.get(winner);
+        }
+
+        /**
+         * Plays one hand for every bot that can still bet, following the flow of the game: two cards each,
+         * the bots decide in seating order, the dealer draws by the rules unless every bot is settled, then all hands
+         * are settled and discarded.
+         */
+        private void playHand() {
+            if (deck.cardsLeft() < tables.getRules().reshuffleThreshold() + 4 * seats.length) {
+                deck.reloadDeckFromDiscard();
+            }
+            Arrays.fill(outcomes, null);
+            for (int seat = 0; seat < seats.length; seat++) {
+                seated[seat] = bankrolls[seat] >= 1;
+            }
+            dealer.hit(deck);
+            for (int seat = 0; seat < seats.length; seat++) {
+                if (seated[seat]) {
+                    seats[seat].hit(deck);
+                    seats[seat].hit(deck);
+                }
+            }
+            dealer.hit(deck);
+            Card upcard = dealer.getHand().getCard(0);
+
+            // The bots play their hands
+            boolean dealerPlays = false;
+            for (int seat = 0; seat < seats.length; seat++) {
+                if (!seated[seat]) {
+                    continue;
+                }
+                Hand hand = seats[seat].getHand();
+                PlayerPolicy policy = bots.get(seat).getStrategy();
+                bets[seat] = 1;
+                while (hand.calculateValue() < 21) {
+                    Action action = policy.decide(hand, upcard);
+                    if (action == Action.STAND || action == Action.SPLIT) {
+                        break;
+                    }
+                    if (action == Action.SURRENDER && hand.getHandSize() == 2) {
+                        outcomes[seat] = Outcome.SURRENDER;
+                        break;
+                    }
+                    // Hit, or double for one card when the bankroll covers it
+                    boolean doubles = action == Action.DOUBLE && hand.getHandSize() == 2 && bankrolls[seat] >= 2;
+                    seats[seat].hit(deck);
+                    if (doubles) {
+                        bets[seat] = 2;
+                        break;
+                    }
+                }
+                if (outcomes[seat] == null && hand.calculateValue() > 21) {
+                    outcomes[seat] = Outcome.PLAYER_BUST;
+                }
+                dealerPlays |= outcomes[seat] == null;
+            }
+
+            // The dealer plays only if a hand is left to settle
+            while (dealerPlays && tables.dealerDraws(dealer.getHand().packedTotal())) {
+                dealer.hit(deck);
+            }
+            int dealerValue = dealer.getHand().calculateValue();
+            for (int seat = 0; seat < seats.length; seat++) {
+                if (!seated[seat]) {
+                    continue;
+                }
+                Hand hand = seats[seat].getHand();
+                Outcome outcome = outcomes[seat] != null ? outcomes[seat] : tables.settle(hand.calculateValue(), dealerValue);
+                boolean natural = hand.getHandSize() == 2 && hand.calculateValue() == 21;
+                double payout = bets[seat] * tables.payout(outcome, natural);
+                bankrolls[seat] += payout;
+                bots.get(seat).addHand(payout);
+                hand.discardHandToDeck(deck);
+            }
+            dealer.getHand().discardHandToDeck(deck);
+        }
+    }
+
+    /**
+     * A bot of the tournament. Only the thread of the table it sits at changes it during a round.
+     */
+    @Getter
+    private static class Bot {
+
+        // Variables
+        private final String name, policy;
+        private final PlayerPolicy strategy;
+        private int wins;
+        private double bankroll, net;
+        private long hands;
+
+        /**
+         * Constructs a bot.
+         *
+         * @param name the name of the bot
+         * @param policy the name of its policy
+         * @param strategy its policy
+         */
+        Bot(String name, String policy, PlayerPolicy strategy) {
+            this.name = name;
+            this.policy = policy;
+            this.strategy = strategy;
+        }
+
+        /**
+         * Counts a hand played.
+         *
+         * @param payout the units won or lost
+         */
+        void addHand(double payout) {
+            hands++;
+            net += payout;
+        }
+
+        /**
+         * Notes the bankroll the bot ended its last round with.
+         *
+         * @param bankroll the bankroll
+         */
+        void setBankroll(double bankroll) {
+            this.bankroll = bankroll;
+        }
+
+        /**
+         * Notes that the bot won its table and advances.
+         *
+         * @param round the round it won
+         */
+        void won(int round) {
+            this.wins = round;
+        }
+    }
+
+    /**
+     * The options of a tournament.
+     *
+     * @param bots the number of bots
+     * @param seats the number of seats at a table
+     * @param hands the number of hands played at a table
+     * @param bankroll the bankroll of every bot at the start of a round, in units
+     * @param policies the names of the policies dealt out to the bots
+     * @param seed the seed of the shoes and the seating
+     */
+    public record Options(int bots, int seats, int hands, int bankroll, List<String> policies, long seed) {
+
+        /**
+         * The flags read by the tournament, besides the rule flags.
+         */
+        public static final Set<String> FLAGS = Set.of("tournament", "seats", "hands", "bankroll", "bots", "seed");
+
+        /**
+         * Validates the options.
+         *
+         * @throws IllegalArgumentException if a value is out of range
+         */
+        public Options {
+            if (bots < 2 || seats < 2 || hands < 1 || bankroll < 1 || policies.isEmpty()) {
+                throw new IllegalArgumentException("A tournament needs at least 2 bots, 2 seats, 1 hand, a bankroll and a policy");
+            }
+        }
+
+        /**
+         * Reads the options from the command line: {@code --tournament[=<bots>]}, {@code --seats=<n>},
+         * {@code --hands=<n>}, {@code --bankroll=<units>}, {@code --bots=<policy,...>} and {@code --seed=<n>}.
+         * Other arguments are left to the rest of the application.
+         *
+         * @param args the command-line arguments
+         * @return the tournament options
+         * @throws IllegalArgumentException if a flag has an invalid value
+         */
+        public static Options parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                if (arg.startsWith("--") && arg.contains("=")) {
+                    values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+                }
+            }
+            return new Options(
+                    (int) Double.parseDouble(values.getOrDefault("tournament", String.valueOf(DEFAULT_BOTS))),
+                    Integer.parseInt(values.getOrDefault("seats", String.valueOf(DEFAULT_SEATS))),
+                    Integer.parseInt(values.getOrDefault("hands", String.valueOf(DEFAULT_HANDS))),
+                    Integer.parseInt(values.getOrDefault("bankroll", String.valueOf(DEFAULT_BANKROLL))),
+                    List.of(values.getOrDefault("bots", "basic,mimic,never-bust").split(",")),
+                    values.containsKey("seed") ? Long.parseLong(values.get("seed")) : new Random().nextLong());
+        }
+    }
+}
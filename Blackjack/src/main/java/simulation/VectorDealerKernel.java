@@ -0,0 +1,102 @@
+package simulation;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import model.HandTotal;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Dealer kernel resolving a vector of lanes at a time with the incubating Vector API.
+ * Lanes still drawing are tracked with a mask; the cards are gathered from the lanes' shoes
+ * and added with vector arithmetic, including Ace softening: an Ace is added as 11 and counted as a soft Ace,
+ * and a total over 21 holding a soft Ace drops by 10. Lanes past the last full vector use {@link ScalarDealerKernel}.
+ * Requires {@code --add-modules jdk.incubator.vector}, see {@link DealerKernel#best(boolean)}.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public class VectorDealerKernel implements DealerKernel {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    // Variables
+    private final boolean hitSoft17;
+    private final ScalarDealerKernel tail;
+    private final int[] cards = new int[SPECIES.length()];
+
+    /**
+     * Constructs the kernel for a soft-17 rule.
+     *
+     * @param hitSoft17 whether the dealer hits a soft 17
+     */
+    public VectorDealerKernel(boolean hitSoft17) {
+        this.hitSoft17 = hitSoft17;
+        this.tail = new ScalarDealerKernel(hitSoft17);
+    }
+
+    @Override
+    public void resolve(int[] dealerTotal, boolean[] live, MemorySegment shoes, int shoeSize, int[] cursor, int lanes) {
+        int bound = SPECIES.loopBound(lanes);
+        for (int first = 0; first < bound; first += SPECIES.length()) {
+            resolveBlock(dealerTotal, live, shoes, shoeSize, cursor, first);
+        }
+
+        // The remaining lanes do not fill a vector
+        tail.resolve(dealerTotal, live, shoes, shoeSize, cursor, bound, lanes);
+    }
+
+    /**
+     * Resolves one vector of lanes starting at the given lane.
+     *
+     * @param dealerTotal the packed dealer totals
+     * @param live whether the dealer plays in each lane
+     * @param shoes the shoes of all lanes
+     * @param shoeSize the number of cards in one shoe
+     * @param cursor the shoe positions
+     * @param first the first lane of the block
+     */
+    private void resolveBlock(int[] dealerTotal, boolean[] live, MemorySegment shoes, int shoeSize, int[] cursor, int first) {
+        IntVector total = IntVector.fromArray(SPECIES, dealerTotal, first);
+        VectorMask<Integer> playing = VectorMask.fromArray(SPECIES, live, first);
+
+        while (true) {
+            IntVector value = total.and(HandTotal.VALUE_MASK);
+            VectorMask<Integer> soft = total.and(HandTotal.SOFT).compare(VectorOperators.NE, 0);
+
+            // Lanes that still draw: below 17, or a soft 17 under H17
+            VectorMask<Integer> draw = value.compare(VectorOperators.LT, 17);
+            if (hitSoft17) {
+                draw = draw.or(value.compare(VectorOperators.EQ, 17).and(soft));
+            }
+            draw = draw.and(playing);
+            if (!draw.anyTrue()) {
+                break;
+            }
+
+            // Gather the next card of every drawing lane
+            for (int k = 0; k < cards.length; k++) {
+                int lane = first + k;
+                cards[k] = draw.laneIsSet(k) ? shoes.get(ValueLayout.JAVA_BYTE, (long) lane * shoeSize + cursor[lane]++) : 0;
+            }
+            IntVector card = IntVector.fromArray(SPECIES, cards, 0);
+
+            // Add the card, counting an Ace as 11 and as one more soft Ace
+            IntVector sum = value.add(card);
+            IntVector softAces = IntVector.zero(SPECIES).blend(1, soft)
+                    .add(IntVector.zero(SPECIES).blend(1, card.compare(VectorOperators.EQ, 11)));
+
+            // Over 21 with a soft Ace: count that Ace as 1
+            VectorMask<Integer> soften = sum.compare(VectorOperators.GT, 21).and(softAces.compare(VectorOperators.GT, 0));
+            sum = sum.sub(10, soften);
+            softAces = softAces.sub(1, soften);
+
+            IntVector packed = sum.or(IntVector.zero(SPECIES).blend(HandTotal.SOFT, softAces.compare(VectorOperators.GT, 0)));
+            total = total.blend(packed, draw);
+        }
+        total.intoArray(dealerTotal, first);
+    }
+}
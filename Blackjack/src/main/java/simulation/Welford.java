@@ -0,0 +1,116 @@
+package simulation;
+
+import lombok.Getter;
+
+/**
+ * Running mean and variance of per-round results (Welford's algorithm).
+ * Accumulators are mergeable (Chan et al.), so every worker thread keeps its own and the totals are combined
+ * without losing precision, and a batch of rounds is folded in as one merge instead of value by value.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+@Getter
+public class Welford {
+
+    /**
+     * The two-sided 95% quantile of the standard normal distribution.
+     */
+    public static final double Z95 = 1.959963984540054;
+
+    // Variables
+    private long count;
+    private double mean;
+    private double m2;
+
+    /**
+     * Adds a single value.
+     *
+     * @param value the value to add
+     */
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+    }
+
+    /**
+     * Adds the first values of an array, computing their mean and squared deviations in two passes and merging them.
+     *
+     * @param values the values
+     * @param length the number of values to add
+     */
+    public void addAll(double[] values, int length) {
+        if (length == 0) {
+            return;
+        }
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += values[i];
+        }
+        double batchMean = sum / length;
+        double batchM2 = 0;
+        for (int i = 0; i < length; i++) {
+            double delta = values[i] - batchMean;
+            batchM2 += delta * delta;
+        }
+        merge(length, batchMean, batchM2);
+    }
+
+    /**
+     * Merges another accumulator into this one.
+     *
+     * @param other the accumulator to merge
+     */
+    public void merge(Welford other) {
+        merge(other.count, other.mean, other.m2);
+    }
+
+    /**
+     * Merges the statistics of another set of values.
+     *
+     * @param otherCount the number of values
+     * @param otherMean their mean
+     * @param otherM2 the sum of their squared deviations from the mean
+     */
+    void merge(long otherCount, double otherMean, double otherM2) {
+        if (otherCount == 0) {
+            return;
+        }
+        long total = count + otherCount;
+        double delta = otherMean - mean;
+        mean += delta * otherCount / total;
+        m2 += otherM2 + delta * delta * ((double) count * otherCount / total);
+        count = total;
+    }
+
+    /**
+     * Returns a copy of the accumulator.
+     *
+     * @return an independent accumulator with the same statistics
+     */
+    public Welford copy() {
+        Welford copy = new Welford();
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * Returns the sample variance of the values.
+     *
+     * @return the variance, 0 with fewer than two values
+     */
+    public double variance() {
+        return count > 1 ? m2 / (count - 1) : 0;
+    }
+
+    /**
+     * Returns the half-width of the 95% confidence interval of the mean.
+     *
+     * @return the half-width, infinite with fewer than two values
+     */
+    public double halfWidth() {
+        return count > 1 ? Z95 * Math.sqrt(variance() / count) : Double.POSITIVE_INFINITY;
+    }
+}
@@ -0,0 +1,179 @@
+package storage;
+
+import controller.Game;
+import controller.Scoreboard;
+import model.Card;
+import model.Outcome;
+import model.Rank;
+import model.Suit;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The complete state of a game at one moment: the shoe in order with its randomizer state,
+ * the discard pile, both hands, the score of the game and the phase of the round.
+ * Written in a compact binary form where every card takes a single byte.
+ *
+ * @param rulesId the identifier of the rules the game was played with
+ * @param phase the phase of the round
+ * @param score the rounds of this game: the totals, the units and the outcomes per upcard
+ * @param seed the seed of the shoe's randomizer
+ * @param shuffles the number of shoe shuffles done with the seed, which is the number of the next shoe
+ * @param reloads the number of reloads from the discard pile done with the seed
+ * @param deck the cards left in the shoe, in the order they will be drawn
+ * @param discarded the discard pile
+ * @param playerHand the player's cards
+ * @param dealerHand the dealer's cards
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public record GameSnapshot(String rulesId, Game.Phase phase, Scoreboard.Snapshot score,
+                           long seed, long shuffles, long reloads, List<Card> deck, List<Card> discarded,
+                           List<Card> playerHand, List<Card> dealerHand) {
+
+    /**
+     * The magic number at the start of a snapshot ("BJGS").
+     */
+    private static final int MAGIC = 0x424A4753;
+
+    /**
+     * The version of the snapshot format. Older versions lack the full score or the count of reloads,
+     * and are no longer read.
+     */
+    private static final int VERSION = 3;
+
+    private static final Card[] CARDS = new Card[Suit.values().length * Rank.values().length];
+    private static final Game.Phase[] PHASES = Game.Phase.values();
+    private static final int OUTCOMES = Outcome.values().length;
+
+    static {
+        for (Suit suit : Suit.values()) {
+            for (Rank rank : Rank.values()) {
+                Card card = new Card(suit, rank);
+                CARDS[card.index()] = card;
+            }
+        }
+    }
+
+    /**
+     * Writes the snapshot in its binary form.
+     *
+     * @param out the stream to write to
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(rulesId);
+        out.writeByte(phase.ordinal());
+        writeScore(out, score);
+        out.writeLong(seed);
+        out.writeLong(shuffles);
+        out.writeLong(reloads);
+        writeCards(out, deck);
+        writeCards(out, discarded);
+        writeCards(out, playerHand);
+        writeCards(out, dealerHand);
+    }
+
+    /**
+     * Reads a snapshot written by {@link #write(DataOutputStream)}.
+     *
+     * @param in the stream to read from
+     * @return the snapshot
+     * @throws IOException if the stream does not hold a valid snapshot, e.g. it is truncated or corrupt
+     */
+    public static GameSnapshot read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a game snapshot");
+        }
+        String rulesId = in.readUTF();
+        int phase = in.readUnsignedByte();
+        if (phase >= PHASES.length) {
+            throw new IOException("Invalid phase " + phase);
+        }
+        return new GameSnapshot(rulesId, PHASES[phase], readScore(in),
+                in.readLong(), in.readLong(), in.readLong(), readCards(in), readCards(in), readCards(in), readCards(in));
+    }
+
+    /**
+     * Writes a score: the totals, the units, then the outcomes of every upcard.
+     *
+     * @param out the stream to write to
+     * @param score the score to write
+     * @throws IOException if the score cannot be written
+     */
+    private static void writeScore(DataOutputStream out, Scoreboard.Snapshot score) throws IOException {
+        out.writeLong(score.wins());
+        out.writeLong(score.losses());
+        out.writeLong(score.pushes());
+        out.writeDouble(score.units());
+        for (long[] upcard : score.outcomes()) {
+            out.writeByte(upcard.length);
+            for (long count : upcard) {
+                out.writeLong(count);
+            }
+        }
+    }
+
+    /**
+     * Reads a score written by {@link #writeScore(DataOutputStream, Scoreboard.Snapshot)}.
+     *
+     * @param in the stream to read from
+     * @return the score
+     * @throws IOException if the score cannot be read or does not fit the outcomes of this version
+     */
+    private static Scoreboard.Snapshot readScore(DataInputStream in) throws IOException {
+        long wins = in.readLong(), losses = in.readLong(), pushes = in.readLong();
+        double units = in.readDouble();
+        long[][] outcomes = new long[Scoreboard.UPCARDS][OUTCOMES];
+        for (long[] upcard : outcomes) {
+            if (in.readUnsignedByte() != OUTCOMES) {
+                throw new IOException("The snapshot was saved with other outcomes");
+            }
+            for (int outcome = 0; outcome < OUTCOMES; outcome++) {
+                upcard[outcome] = in.readLong();
+            }
+        }
+        return new Scoreboard.Snapshot(wins, losses, pushes, units, outcomes);
+    }
+
+    /**
+     * Writes a list of cards as a count followed by one byte per card.
+     *
+     * @param out the stream to write to
+     * @param cards the cards to write
+     * @throws IOException if the cards cannot be written
+     */
+    private static void writeCards(DataOutputStream out, List<Card> cards) throws IOException {
+        out.writeShort(cards.size());
+        for (Card card : cards) {
+            out.writeByte(card.index());
+        }
+    }
+
+    /**
+     * Reads a list of cards written by {@link #writeCards(DataOutputStream, List)}.
+     *
+     * @param in the stream to read from
+     * @return the cards
+     * @throws IOException if the cards cannot be read or a card is invalid
+     */
+    private static List<Card> readCards(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        List<Card> cards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int card = in.readUnsignedByte();
+            if (card >= CARDS.length) {
+                throw new IOException("Invalid card " + card);
+            }
+            cards.add(CARDS[card]);
+        }
+        return cards;
+    }
+}
@@ -0,0 +1,180 @@
+package storage;
+
+import lombok.Getter;
+import model.Outcome;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Lifetime statistics of one player: record, streaks, bankroll history and outcomes per dealer upcard.
+ * Every round is applied in constant time; the bankroll history keeps one sample every
+ * {@link #HISTORY_STRIDE} rounds, so the statistics stay small after millions of rounds.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+@Getter
+public class PlayerStats {
+
+    /**
+     * The number of rounds between two samples of the bankroll history.
+     */
+    public static final int HISTORY_STRIDE = 100;
+
+    // Variables
+    private long rounds, wins, losses, pushes;
+    private long streak, longestWinStreak, longestLossStreak;
+    private double bankroll;
+    private double[] bankrollHistory = new double[16];
+    private int historySize;
+    private final long[][] upcardResults = new long[10][3];
+
+    /**
+     * Applies the result of one round.
+     *
+     * @param outcome the outcome of the round
+     * @param upcard the value of the dealer's upcard (2-11)
+     * @param payout the units won (positive) or lost (negative) in the round
+     */
+    public void apply(Outcome outcome, int upcard, double payout) {
+        rounds++;
+        bankroll += payout;
+
+        // Record and streaks; a push does not break a streak
+        switch (outcome.getResult()) {
+            case 1 -> {
+                wins++;
+                streak = streak > 0 ? streak + 1 : 1;
+                longestWinStreak = Math.max(longestWinStreak, streak);
+            }
+            case -1 -> {
+                losses++;
+                streak = streak < 0 ? streak - 1 : -1;
+                longestLossStreak = Math.max(longestLossStreak, -streak);
+            }
+            default -> pushes++;
+        }
+
+        // Wins, losses and pushes per dealer upcard
+        upcardResults[upcard - 2][resultIndex(outcome)]++;
+
+        if (rounds % HISTORY_STRIDE == 0) {
+            if (historySize == bankrollHistory.length) {
+                bankrollHistory = Arrays.copyOf(bankrollHistory, historySize * 2);
+            }
+            bankrollHistory[historySize++] = bankroll;
+        }
+    }
+
+    /**
+     * Returns the bankroll samples taken so far, one every {@link #HISTORY_STRIDE} rounds.
+     *
+     * @return a copy of the bankroll history
+     */
+    public double[] getBankrollHistory() {
+        return Arrays.copyOf(bankrollHistory, historySize);
+    }
+
+    /**
+     * Returns the number of rounds won, lost or pushed against the given upcard.
+     *
+     * @param upcard the value of the dealer's upcard (2-11)
+     * @param result 1 for wins, -1 for losses, 0 for pushes
+     * @return the number of rounds
+     */
+    public long getUpcardResults(int upcard, int result) {
+        return upcardResults[upcard - 2][result == 1 ? 0 : result == -1 ? 1 : 2];
+    }
+
+    /**
+     * Returns a copy of these statistics.
+     *
+     * @return the copy
+     */
+    public PlayerStats copy() {
+        PlayerStats copy = new PlayerStats();
+        copy.rounds = rounds;
+        copy.wins = wins;
+        copy.losses = losses;
+        copy.pushes = pushes;
+        copy.streak = streak;
+        copy.longestWinStreak = longestWinStreak;
+        copy.longestLossStreak = longestLossStreak;
+        copy.bankroll = bankroll;
+        copy.bankrollHistory = bankrollHistory.clone();
+        copy.historySize = historySize;
+        for (int i = 0; i < upcardResults.length; i++) {
+            copy.upcardResults[i] = upcardResults[i].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Writes the statistics in their binary form.
+     *
+     * @param out the stream to write to
+     * @throws IOException if the statistics cannot be written
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeLong(rounds);
+        out.writeLong(wins);
+        out.writeLong(losses);
+        out.writeLong(pushes);
+        out.writeLong(streak);
+        out.writeLong(longestWinStreak);
+        out.writeLong(longestLossStreak);
+        out.writeDouble(bankroll);
+        for (long[] results : upcardResults) {
+            for (long count : results) {
+                out.writeLong(count);
+            }
+        }
+        out.writeInt(historySize);
+        for (int i = 0; i < historySize; i++) {
+            out.writeDouble(bankrollHistory[i]);
+        }
+    }
+
+    /**
+     * Reads statistics written by {@link #write(DataOutputStream)}.
+     *
+     * @param in the stream to read from
+     * @return the statistics
+     * @throws IOException if the statistics cannot be read
+     */
+    public static PlayerStats read(DataInputStream in) throws IOException {
+        PlayerStats stats = new PlayerStats();
+        stats.rounds = in.readLong();
+        stats.wins = in.readLong();
+        stats.losses = in.readLong();
+        stats.pushes = in.readLong();
+        stats.streak = in.readLong();
+        stats.longestWinStreak = in.readLong();
+        stats.longestLossStreak = in.readLong();
+        stats.bankroll = in.readDouble();
+        for (long[] results : stats.upcardResults) {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = in.readLong();
+            }
+        }
+        stats.historySize = in.readInt();
+        stats.bankrollHistory = new double[Math.max(16, stats.historySize)];
+        for (int i = 0; i < stats.historySize; i++) {
+            stats.bankrollHistory[i] = in.readDouble();
+        }
+        return stats;
+    }
+
+    /**
+     * Returns the column of an outcome in the per-upcard results: wins, losses, pushes.
+     *
+     * @param outcome the outcome of the round
+     * @return the column index
+     */
+    private static int resultIndex(Outcome outcome) {
+        return outcome.getResult() == 1 ? 0 : outcome.getResult() == -1 ? 1 : 2;
+    }
+}
@@ -0,0 +1,122 @@
+package storage;
+
+import model.CertifiedShuffler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Set;
+
+/**
+ * Audit log of the certified shuffles of a player's table ({@link CertifiedShuffler}), a text file with a line per event:
+ * {@code commit <digest>} when a shoe comes into play, before its first card is dealt, and
+ * {@code reveal <digest> <salt> <order>} once it has been played, all in hexadecimal.
+ * {@link #verify(Path)} checks every revealed shoe against the digest committed before it was dealt.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public class ShuffleAudit {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    // Variables
+    private final Path file;
+
+    /**
+     * Constructs the audit log of a player in the given directory.
+     *
+     * @param directory the directory holding the logs
+     * @param playerName the name of the player
+     */
+    public ShuffleAudit(Path directory, String playerName) {
+        this.file = directory.resolve(playerName.replaceAll("[^A-Za-z0-9._-]", "_") + ".audit");
+    }
+
+    /**
+     * Opens the audit log of a player in the "snapshots" directory of the game's home directory.
+     *
+     * @param playerName the name of the player
+     * @return the audit log
+     */
+    public static ShuffleAudit open(String playerName) {
+        return new ShuffleAudit(StatsStore.homeDirectory().resolve("snapshots"), playerName);
+    }
+
+    /**
+     * Publishes the commitment of a shoe coming into play.
+     *
+     * @param commitment the commitment, or null for a shoe that was not shuffled in the certified mode
+     */
+    public void commit(CertifiedShuffler.Commitment commitment) {
+        if (commitment != null) {
+            append("commit " + commitment.digestHex());
+        }
+    }
+
+    /**
+     * Reveals the opening of a shoe that has been played.
+     *
+     * @param commitment the commitment, or null for a shoe that was not shuffled in the certified mode
+     */
+    public void reveal(CertifiedShuffler.Commitment commitment) {
+        if (commitment != null) {
+            append("reveal " + commitment.digestHex() + " " + HEX.formatHex(commitment.salt())
+                    + " " + HEX.formatHex(commitment.order()));
+        }
+    }
+
+    /**
+     * Checks an audit log: every revealed shoe must have been committed to before, and hash to its digest.
+     *
+     * @param file the audit log
+     * @return the number of revealed shoes checked
+     * @throws IOException if the log cannot be read, or a revealed shoe does not match its commitment
+     */
+    public static int verify(Path file) throws IOException {
+        Set<String> committed = new HashSet<>();
+        int checked = 0;
+        try (BufferedReader in = Files.newBufferedReader(file)) {
+            String line;
+            for (int number = 1; (line = in.readLine()) != null; number++) {
+                String[] fields = line.split(" ");
+                if (fields[0].equals("commit") && fields.length == 2) {
+                    committed.add(fields[1]);
+                } else if (fields[0].equals("reveal") && fields.length == 4) {
+                    if (!committed.contains(fields[1])) {
+                        throw new IOException("Line " + number + ": shoe " + fields[1] + " was never committed to");
+                    }
+                    if (!CertifiedShuffler.Commitment.verify(HEX.parseHex(fields[1]), HEX.parseHex(fields[2]),
+                            HEX.parseHex(fields[3]))) {
+                        throw new IOException("Line " + number + ": shoe " + fields[1] + " does not match its commitment");
+                    }
+                    checked++;
+                } else {
+                    throw new IOException("Line " + number + ": not an audit record");
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid hexadecimal in " + file + ": " + e.getMessage(), e);
+        }
+        return checked;
+    }
+
+    /**
+     * Appends a line to the log, reporting failures without stopping the game.
+     *
+     * @param line the line
+     */
+    private void append(String line) {
+        try {
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, line + System.lineSeparator(),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Cannot write shuffle audit " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package storage;
+
+import controller.Scoreboard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * File store of a player's last {@link GameSnapshot}.
+ * A snapshot is written to a temporary file and moved over the previous one atomically,
+ * so a crash while saving always leaves a complete snapshot behind.
+ * The score is exported next to the snapshot as CSV ({@link Scoreboard#export(Path)}).
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public class SnapshotStore {
+
+    // Variables
+    private final Path file, scoreFile;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Constructs the store of a player in the given directory.
+     *
+     * @param directory the directory holding the snapshots
+     * @param playerName the name of the player
+     */
+    public SnapshotStore(Path directory, String playerName) {
+        String name = playerName.replaceAll("[^A-Za-z0-9._-]", "_");
+        this.file = directory.resolve(name + ".snap");
+        this.scoreFile = directory.resolve(name + ".score.csv");
+    }
+
+    /**
+     * Opens the store of a player in the "snapshots" directory of the game's home directory.
+     *
+     * @param playerName the name of the player
+     * @return the store
+     */
+    public static SnapshotStore open(String playerName) {
+        return new SnapshotStore(StatsStore.homeDirectory().resolve("snapshots"), playerName);
+    }
+
+    /**
+     * Loads the last snapshot.
+     *
+     * @return the snapshot, or null if there is none or it cannot be read, so a bad file only starts a new game
+     */
+    public GameSnapshot load() {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            return GameSnapshot.read(in);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Cannot resume saved game " + file + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes a snapshot after any background save still in progress, and stops background saving.
+     * Used when the game exits.
+     *
+     * @param snapshot the snapshot to write
+     */
+    public void save(GameSnapshot snapshot) {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        write(snapshot);
+    }
+
+    /**
+     * Writes a snapshot on the background writer thread.
+     *
+     * @param snapshot the snapshot to write
+     */
+    public void saveInBackground(GameSnapshot snapshot) {
+        if (!writer.isShutdown()) {
+            writer.execute(() -> write(snapshot));
+        }
+    }
+
+    /**
+     * Exports a snapshot of a scoreboard on the background writer thread.
+     *
+     * @param scoreboard the scoreboard to export
+     */
+    public void exportInBackground(Scoreboard scoreboard) {
+        if (!writer.isShutdown()) {
+            writer.execute(() -> {
+                try {
+                    scoreboard.export(scoreFile);
+                } catch (IOException e) {
+                    System.err.println("Cannot export score " + scoreFile + ": " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Writes a snapshot to a temporary file and moves it over the previous snapshot.
+     *
+     * @param snapshot the snapshot to write
+     */
+    private void write(GameSnapshot snapshot) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            try (OutputStream stream = Files.newOutputStream(temporary);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+                snapshot.write(out);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Cannot save game " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package storage;
+
+import model.Outcome;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * File-backed store of a player's lifetime statistics.
+ * Each round is applied to the in-memory {@link PlayerStats} at once and appended as a small fixed-size
+ * record to a write-ahead log by a background writer, so recording never blocks the Swing thread.
+ * Every {@link #COMPACT_EVERY} rounds (and on close) the writer compacts the log into a statistics file,
+ * so loading a player reads one small file plus a bounded log, however many rounds were played.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public class StatsStore implements AutoCloseable {
+
+    /**
+     * The number of logged rounds after which the log is compacted.
+     */
+    public static final int COMPACT_EVERY = 10_000;
+
+    /**
+     * The size of one log record: outcome, upcard and payout.
+     */
+    private static final int RECORD_SIZE = 10;
+
+    /**
+     * The size of the log header: the number of rounds the log starts after.
+     */
+    private static final int HEADER_SIZE = 8;
+
+    /**
+     * The magic number at the start of a statistics file ("BJSS").
+     */
+    private static final int MAGIC = 0x424A5353;
+
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    // Variables
+    private final Path statsFile, logFile;
+    private final PlayerStats stats;
+    private final PlayerStats durable;
+    private final FileChannel log;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stats-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private int logged;
+    private Thread flushOnExit;
+
+    /**
+     * Opens the store of a player in the given directory, loading the statistics and replaying the log.
+     * The store has to be closed to write the pending rounds; {@link #open(String)} also closes it when the JVM stops.
+     *
+     * @param directory the directory holding the statistics files
+     * @param playerName the name of the player
+     * @throws IOException if the files cannot be read or created
+     */
+    public StatsStore(Path directory, String playerName) throws IOException {
+        Files.createDirectories(directory);
+        String fileName = playerName.replaceAll("[^A-Za-z0-9._-]", "_");
+        statsFile = directory.resolve(fileName + ".stats");
+        logFile = directory.resolve(fileName + ".wal");
+
+        durable = loadStats();
+        log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        replayLog();
+        stats = durable.copy();
+    }
+
+    /**
+     * Opens the store of a player in the default directory ({@code ~/.blackjack/stats},
+     * or the "stats" directory under the {@code blackjack.home} system property).
+     * Rounds still queued when the application exits are written before the JVM stops.
+     *
+     * @param playerName the name of the player
+     * @return the store
+     * @throws IOException if the files cannot be read or created
+     */
+    public static StatsStore open(String playerName) throws IOException {
+        StatsStore store = new StatsStore(homeDirectory().resolve("stats"), playerName);
+        store.flushOnExit = new Thread(store::close, "stats-flush");
+        Runtime.getRuntime().addShutdownHook(store.flushOnExit);
+        return store;
+    }
+
+    /**
+     * Returns the directory where the game keeps its files.
+     *
+     * @return the home directory of the game
+     */
+    public static Path homeDirectory() {
+        String home = System.getProperty("blackjack.home");
+        return home != null ? Path.of(home) : Path.of(System.getProperty("user.home"), ".blackjack");
+    }
+
+    /**
+     * Records the result of a round. The statistics are updated at once, the log is written in the background.
+     *
+     * @param outcome the outcome of the round
+     * @param upcard the value of the dealer's upcard (2-11)
+     * @param payout the units won (positive) or lost (negative) in the round
+     */
+    public void record(Outcome outcome, int upcard, double payout) {
+        stats.apply(outcome, upcard, payout);
+        writer.execute(() -> append(outcome, upcard, payout));
+    }
+
+    /**
+     * Returns the statistics including every recorded round.
+     *
+     * @return the lifetime statistics of the player
+     */
+    public PlayerStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Writes the pending rounds, compacts the log and stops the writer.
+     */
+    @Override
+    public void close() {
+        if (writer.isShutdown()) {
+            return;
+        }
+        // Closed before the JVM stops, so the shutdown hook is no longer needed
+        if (flushOnExit != null && Thread.currentThread() != flushOnExit) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(flushOnExit);
+            } catch (IllegalStateException e) {
+                // The JVM is already stopping
+            }
+        }
+        writer.execute(this::compact);
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+            log.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Cannot close statistics log " + logFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends a round to the log and applies it to the durable statistics (writer thread only).
+     *
+     * @param outcome the outcome of the round
+     * @param upcard the value of the dealer's upcard
+     * @param payout the payout of the round
+     */
+    private void append(Outcome outcome, int upcard, double payout) {
+        try {
+            record.clear();
+            record.put((byte) outcome.ordinal()).put((byte) upcard).putDouble(payout).flip();
+            log.write(record, log.size());
+            durable.apply(outcome, upcard, payout);
+            if (++logged >= COMPACT_EVERY) {
+                compact();
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot write statistics log " + logFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the durable statistics to the statistics file and restarts the log (writer thread only).
+     * The file is replaced atomically; the log header records how many rounds the file already holds,
+     * so a crash between the two steps never counts a round twice.
+     */
+    private void compact() {
+        try {
+            Path temporary = statsFile.resolveSibling(statsFile.getFileName() + ".tmp");
+            try (OutputStream file = Files.newOutputStream(temporary);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+                out.writeInt(MAGIC);
+                durable.write(out);
+            }
+            Files.move(temporary, statsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            log.truncate(0);
+            writeLogHeader();
+            logged = 0;
+        } catch (IOException e) {
+            System.err.println("Cannot compact statistics " + statsFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the statistics file, or empty statistics for a new player.
+     *
+     * @return the statistics stored in the file
+     * @throws IOException if the file exists but cannot be read
+     */
+    private PlayerStats loadStats() throws IOException {
+        if (!Files.exists(statsFile)) {
+            return new PlayerStats();
+        }
+        try (InputStream file = Files.newInputStream(statsFile);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a statistics file: " + statsFile);
+            }
+            return PlayerStats.read(in);
+        }
+    }
+
+    /**
+     * Applies the rounds of the log that are not yet in the statistics file.
+     * A partially written last record (e.g. after a crash) is dropped.
+     *
+     * @throws IOException if the log cannot be read
+     */
+    private void replayLog() throws IOException {
+        if (log.size() < HEADER_SIZE) {
+            log.truncate(0);
+            writeLogHeader();
+            return;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(log.size(), Integer.MAX_VALUE));
+        while (buffer.hasRemaining() && log.read(buffer, buffer.position()) > 0) {
+            // Read until the whole log is in the buffer
+        }
+        buffer.flip();
+        long skip = durable.getRounds() - buffer.getLong();
+        while (buffer.remaining() >= RECORD_SIZE) {
+            Outcome outcome = OUTCOMES[buffer.get()];
+            int upcard = buffer.get();
+            double payout = buffer.getDouble();
+            if (skip-- > 0) {
+                continue;
+            }
+            durable.apply(outcome, upcard, payout);
+            logged++;
+        }
+        log.truncate(HEADER_SIZE + (log.size() - HEADER_SIZE) / RECORD_SIZE * RECORD_SIZE);
+    }
+
+    /**
+     * Writes the log header holding the number of rounds already in the statistics file.
+     *
+     * @throws IOException if the header cannot be written
+     */
+    private void writeLogHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putLong(durable.getRounds()).flip();
+        log.write(header, 0);
+        log.force(false);
+    }
+}
@@ -0,0 +1,42 @@
+package strategy;
+
+import lombok.Getter;
+
+/**
+ * Represents a player decision stored in a {@link StrategyTable}.
+ * Each action has a one-byte code, which is what the tables hold.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+@Getter
+public enum Action {
+    STAND((byte) 0),
+    HIT((byte) 1),
+    DOUBLE((byte) 2),
+    SPLIT((byte) 3),
+    SURRENDER((byte) 4);
+
+    private static final Action[] BY_CODE = values();
+
+    private final byte code;
+
+    /**
+     * Constructs an Action with the given table code.
+     *
+     * @param code the code of the action in a strategy table
+     */
+    Action(byte code) {
+        this.code = code;
+    }
+
+    /**
+     * Returns the action stored under the given table code.
+     *
+     * @param code the code of the action
+     * @return the action
+     */
+    public static Action fromCode(byte code) {
+        return BY_CODE[code];
+    }
+}
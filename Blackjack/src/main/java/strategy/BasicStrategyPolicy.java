@@ -0,0 +1,44 @@
+package strategy;
+
+import lombok.Getter;
+import model.Rules;
+
+/**
+ * Player policy that follows a precomputed {@link StrategyTable}.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+@Getter
+public class BasicStrategyPolicy implements PlayerPolicy {
+
+    // Variables
+    private final StrategyTable table;
+
+    /**
+     * Constructs the policy from a strategy table.
+     *
+     * @param table the table to follow
+     */
+    public BasicStrategyPolicy(StrategyTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Constructs the policy for a rule set, loading its precomputed table.
+     *
+     * @param rules the rule set
+     */
+    public BasicStrategyPolicy(Rules rules) {
+        this(StrategyTable.load(rules));
+    }
+
+    @Override
+    public Action decide(int total, boolean soft, int upcard, boolean firstDecision) {
+        // Totals below 4 or above 21 never reach the table
+        if (total >= 21) {
+            return Action.STAND;
+        }
+        return table.decide(Math.max(total, 4), soft, upcard, firstDecision);
+    }
+}
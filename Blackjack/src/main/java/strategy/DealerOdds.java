@@ -0,0 +1,169 @@
+package strategy;
+
+import model.HandTotal;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Computes the distribution of the dealer's final total for a given upcard,
+ * drawing without replacement from a known shoe composition.
+ * The dealer plays the fixed house policy: draw below 17, and on a soft 17 only under H17 rules.
+ * Results of intermediate dealer hands are memoized, so repeated queries against the same shoe are cheap.
+ * Cards can also be taken out of the shoe between queries ({@link #remove(int)}); the memo stays valid,
+ * because every entry is keyed by the cards removed from the original composition.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public class DealerOdds {
+
+    /**
+     * The number of entries in a distribution: final totals 17 to 21 followed by bust.
+     */
+    public static final int OUTCOMES = 6;
+
+    /**
+     * The index of the bust probability in a distribution.
+     */
+    public static final int BUST = 5;
+
+    // Variables
+    private final int[] counts;
+    private final int cards;
+    private final boolean hitSoft17;
+    private final int[] removed = new int[10];
+    private int drawn;
+    private final Map<Long, double[]> memo = new HashMap<>();
+
+    /**
+     * Constructs the calculator for a shoe composition.
+     *
+     * @param counts the number of cards of each value left in the shoe, indexed by card value minus 2
+     * @param hitSoft17 whether the dealer hits a soft 17
+     */
+    public DealerOdds(int[] counts, boolean hitSoft17) {
+        this.counts = counts.clone();
+        this.hitSoft17 = hitSoft17;
+
+        int sum = 0;
+        for (int count : counts) {
+            sum += count;
+        }
+        this.cards = sum;
+    }
+
+    /**
+     * Returns the probabilities of the dealer finishing on 17, 18, 19, 20, 21 or busting,
+     * given the upcard. The hole card is drawn from the shoe like every later card.
+     *
+     * @param upcard the value of the dealer's upcard (2-11)
+     * @return the distribution of final totals, indexed by total minus 17, with bust at {@link #BUST}
+     */
+    public double[] distribution(int upcard) {
+        remove(upcard);
+        double[] result = play(HandTotal.of(upcard));
+        restore(upcard);
+        return result;
+    }
+
+    /**
+     * Takes a card out of the shoe until it is restored.
+     *
+     * @param value the value of the card (2-11)
+     */
+    public void remove(int value) {
+        removed[value - 2]++;
+        drawn++;
+    }
+
+    /**
+     * Puts a card taken out with {@link #remove(int)} back into the shoe.
+     *
+     * @param value the value of the card (2-11)
+     */
+    public void restore(int value) {
+        removed[value - 2]--;
+        drawn--;
+    }
+
+    /**
+     * Returns the probability that the next card drawn from the shoe has the given value.
+     *
+     * @param value the value of the card (2-11)
+     * @return the probability of drawing the value, 0 if the shoe is empty
+     */
+    public double probability(int value) {
+        int left = cards - drawn;
+        return left > 0 ? (double) Math.max(0, counts[value - 2] - removed[value - 2]) / left : 0;
+    }
+
+    /**
+     * Checks whether the dealer draws on the given packed total.
+     *
+     * @param total the packed total of the dealer's hand
+     * @param hitSoft17 whether the dealer hits a soft 17
+     * @return true if the dealer must draw another card
+     */
+    public static boolean dealerDraws(int total, boolean hitSoft17) {
+        int value = HandTotal.value(total);
+        return value < 17 || (hitSoft17 && value == 17 && HandTotal.isSoft(total));
+    }
+
+    /**
+     * Plays the dealer's hand from the given total over every possible next card.
+     *
+     * @param total the packed total of the dealer's hand
+     * @return the distribution of final totals
+     */
+    private double[] play(int total) {
+        double[] result = new double[OUTCOMES];
+        int value = HandTotal.value(total);
+        if (value > 21) {
+            result[BUST] = 1;
+            return result;
+        }
+        if (!dealerDraws(total, hitSoft17)) {
+            result[value - 17] = 1;
+            return result;
+        }
+
+        // The removed cards and the total identify the position in the shoe
+        long key = key(total);
+        double[] cached = memo.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        int left = cards - drawn;
+        for (int i = 0; i < counts.length; i++) {
+            int available = counts[i] - removed[i];
+            if (available <= 0) {
+                continue;
+            }
+            double probability = (double) available / left;
+            remove(i + 2);
+            double[] next = play(HandTotal.add(total, i + 2));
+            restore(i + 2);
+            for (int outcome = 0; outcome < OUTCOMES; outcome++) {
+                result[outcome] += probability * next[outcome];
+            }
+        }
+        memo.put(key, result);
+        return result;
+    }
+
+    /**
+     * Packs a hand total and the cards removed so far into a memo key (5 bits per card value).
+     *
+     * @param total the packed total of the hand
+     * @return the memo key
+     */
+    long key(int total) {
+        long key = total;
+        for (int count : removed) {
+            key = (key << 5) | count;
+        }
+        return key;
+    }
+}
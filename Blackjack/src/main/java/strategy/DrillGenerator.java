@@ -0,0 +1,310 @@
+package strategy;
+
+import model.Card;
+import model.Hand;
+import model.Rank;
+import model.Suit;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Deals drill scenarios: a two-card player hand against a dealer upcard, with the answer of a {@link StrategyTable}.
+ * Scenarios favour the player's weak spots: every situation (hand total, softness and upcard) keeps an exponentially
+ * weighted error rate, updated in constant time by {@link #record(Scenario, boolean)}, and is drawn with a weight of
+ * that rate plus {@link #FLOOR}, so situations answered well still come back now and then.
+ * <p>
+ * Scenarios are drawn in batches of {@link #BATCH} with Vose's alias method, on a background thread: halfway through a
+ * batch, the next one is generated from a copy of the current error rates, so {@link #next()} never waits and the
+ * weights are at most one and a half batches old.
+ * Apart from the background generation, a generator is used on one thread only.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public class DrillGenerator implements AutoCloseable {
+
+    /**
+     * The number of scenarios generated at once.
+     */
+    public static final int BATCH = 64;
+
+    /**
+     * The weight of the latest answer in the error rate of its situation.
+     */
+    public static final double LEARNING_RATE = 0.25;
+
+    /**
+     * The error rate of a situation not answered yet.
+     */
+    public static final double PRIOR = 0.5;
+
+    /**
+     * The weight added to every error rate, so no situation disappears from the drill.
+     */
+    public static final double FLOOR = 0.05;
+
+    // Two-card hands: hard 4-20, then soft 12 (two aces) to soft 20; a two-card 21 needs no decision
+    private static final int HARD = 17, SOFT = 9;
+
+    /**
+     * The number of situations: every two-card hand against every upcard.
+     */
+    public static final int SITUATIONS = (HARD + SOFT) * StrategyTable.UPCARDS;
+
+    private static final Rank[] TEN_VALUED = {Rank.TEN, Rank.JACK, Rank.QUEEN, Rank.KING};
+
+    // Variables
+    private final StrategyTable table;
+    private final double[] errors = new double[SITUATIONS];
+    private final long[] seen = new long[SITUATIONS];
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "drill-generator");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Scenario[] batch;
+    private int position;
+    private Future<Scenario[]> upcoming;
+
+    /**
+     * Constructs a generator answering with the given table, and generates its first batch.
+     *
+     * @param table the strategy table the answers come from
+     */
+    public DrillGenerator(StrategyTable table) {
+        this.table = table;
+        Arrays.fill(errors, PRIOR);
+        batch = generate(errors.clone(), new Random());
+    }
+
+    /**
+     * Returns the next scenario of the current batch, switching to the batch generated in the background when it runs out.
+     *
+     * @return the scenario
+     */
+    public Scenario next() {
+        if (position == BATCH / 2) {
+            double[] weights = errors.clone();
+            upcoming = worker.submit(() -> generate(weights, ThreadLocalRandom.current()));
+        }
+        if (position == BATCH) {
+            try {
+                batch = upcoming.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Cannot generate drill scenarios", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch = generate(errors.clone(), new Random());
+            }
+            position = 0;
+        }
+        return batch[position++];
+    }
+
+    /**
+     * Updates the error rate of the situation of a scenario with the player's answer.
+     *
+     * @param scenario the scenario answered
+     * @param correct whether the answer was right
+     */
+    public void record(Scenario scenario, boolean correct) {
+        int situation = scenario.situation();
+        errors[situation] += LEARNING_RATE * ((correct ? 0 : 1) - errors[situation]);
+        seen[situation]++;
+    }
+
+    /**
+     * Returns the situation answered worst so far.
+     *
+     * @return the situation with the highest error rate among those answered, or -1 before the first answer
+     */
+    public int weakest() {
+        int weakest = -1;
+        for (int situation = 0; situation < SITUATIONS; situation++) {
+            if (seen[situation] > 0 && (weakest < 0 || errors[situation] > errors[weakest])) {
+                weakest = situation;
+            }
+        }
+        return weakest;
+    }
+
+    /**
+     * Returns the current error rate of a situation.
+     *
+     * @param situation the situation
+     * @return the exponentially weighted share of wrong answers
+     */
+    public double errorRate(int situation) {
+        return errors[situation];
+    }
+
+    /**
+     * Describes a situation, e.g. "soft 18 against 9".
+     *
+     * @param situation the situation
+     * @return the description
+     */
+    public static String describe(int situation) {
+        int upcard = upcard(situation);
+        return (soft(situation) ? "soft " : "hard ") + total(situation) + " against " + (upcard == 11 ? "A" : upcard);
+    }
+
+    /**
+     * Stops the background generation.
+     */
+    @Override
+    public void close() {
+        worker.shutdownNow();
+    }
+
+    /**
+     * Draws a batch of scenarios with the alias method.
+     *
+     * @param weights the error rate of every situation
+     * @param random the randomizer of the batch
+     * @return the scenarios
+     */
+    private Scenario[] generate(double[] weights, Random random) {
+        // Vose's alias table: every column holds the probability of its own situation and the alias filling the rest
+        double[] probability = new double[SITUATIONS];
+        int[] alias = new int[SITUATIONS];
+        double sum = 0;
+        for (double weight : weights) {
+            sum += weight + FLOOR;
+        }
+        int[] small = new int[SITUATIONS], large = new int[SITUATIONS];
+        int smalls = 0, larges = 0;
+        for (int i = 0; i < SITUATIONS; i++) {
+            probability[i] = (weights[i] + FLOOR) * SITUATIONS / sum;
+            if (probability[i] < 1) {
+                small[smalls++] = i;
+            } else {
+                large[larges++] = i;
+            }
+        }
+        while (smalls > 0 && larges > 0) {
+            int less = small[--smalls], more = large[--larges];
+            alias[less] = more;
+            probability[more] += probability[less] - 1;
+            if (probability[more] < 1) {
+                small[smalls++] = more;
+            } else {
+                large[larges++] = more;
+            }
+        }
+        // Left over by rounding
+        while (larges > 0) {
+            probability[large[--larges]] = 1;
+        }
+        while (smalls > 0) {
+            probability[small[--smalls]] = 1;
+        }
+
+        Scenario[] scenarios = new Scenario[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            int column = random.nextInt(SITUATIONS);
+            scenarios[i] = deal(random.nextDouble() < probability[column] ? column : alias[column], random);
+        }
+        return scenarios;
+    }
+
+    /**
+     * Deals cards making up a situation, with random suits and ten-valued ranks.
+     *
+     * @param situation the situation
+     * @param random the randomizer
+     * @return the scenario
+     */
+    private Scenario deal(int situation, Random random) {
+        int total = total(situation);
+        boolean soft = soft(situation);
+        Hand player = new Hand();
+        if (soft) {
+            // An ace and the rest, two aces for a soft 12
+            player.addCard(card(11, random));
+            player.addCard(card(total == 12 ? 11 : total - 11, random));
+        } else {
+            // Two cards from 2 to 10
+            int first = Math.max(2, total - 10) + random.nextInt(Math.min(10, total - 2) - Math.max(2, total - 10) + 1);
+            player.addCard(card(first, random));
+            player.addCard(card(total - first, random));
+        }
+        int upcard = upcard(situation);
+        return new Scenario(situation, player, card(upcard, random), table.decide(total, soft, upcard, true));
+    }
+
+    /**
+     * Returns a card of the given value with a random suit.
+     *
+     * @param value the value of the card (2-11)
+     * @param random the randomizer
+     * @return the card
+     */
+    private static Card card(int value, Random random) {
+        Suit suit = Suit.values()[random.nextInt(Suit.values().length)];
+        Rank rank = switch (value) {
+            case 11 -> Rank.ACE;
+            case 10 -> TEN_VALUED[random.nextInt(TEN_VALUED.length)];
+            default -> Rank.values()[value - 1];
+        };
+        return new Card(suit, rank);
+    }
+
+    /**
+     * Returns the hand total of a situation.
+     *
+     * @param situation the situation
+     * @return the total
+     */
+    private static int total(int situation) {
+        int hand = situation / StrategyTable.UPCARDS;
+        return hand < HARD ? hand + 4 : hand - HARD + 12;
+    }
+
+    /**
+     * Returns whether the hand of a situation is soft.
+     *
+     * @param situation the situation
+     * @return true for a soft hand
+     */
+    private static boolean soft(int situation) {
+        return situation / StrategyTable.UPCARDS >= HARD;
+    }
+
+    /**
+     * Returns the dealer upcard of a situation.
+     *
+     * @param situation the situation
+     * @return the value of the upcard (2-11)
+     */
+    private static int upcard(int situation) {
+        return situation % StrategyTable.UPCARDS + 2;
+    }
+
+    /**
+     * A drill scenario.
+     *
+     * @param situation the situation, see {@link #describe(int)}
+     * @param player the player's two cards
+     * @param upcard the dealer's upcard
+     * @param answer the action of the strategy table
+     */
+    public record Scenario(int situation, Hand player, Card upcard, Action answer) {
+
+        /**
+         * Returns the player's cards.
+         *
+         * @return the two cards
+         */
+        public List<Card> cards() {
+            return player.cards();
+        }
+    }
+}
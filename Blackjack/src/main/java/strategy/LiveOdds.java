@@ -0,0 +1,187 @@
+package strategy;
+
+import model.HandTotal;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Computes the odds of the player's current decision from the cards still unseen in the shoe:
+ * the chance of busting on a hit, the dealer's final-total distribution for the upcard,
+ * and the expected values of hitting (then playing on optimally) and standing.
+ * The dealer's distribution and the next card are exact for the unseen cards; the hands played on after the next
+ * card use the same distribution and draw probabilities, as the basic strategy tables do.
+ * One calculator follows a whole shoe. Its memo tables are keyed by the cards removed from a base composition,
+ * so a new decision in the same shoe reuses every position already evaluated; the base is only replaced
+ * after a reshuffle or once too many cards have left the shoe for the keys to hold.
+ * The dealer's natural is treated as an ordinary 21, as the dealer does not peek.
+ * Not thread-safe: meant to be confined to a single worker thread.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public class LiveOdds {
+
+    /**
+     * The odds of a decision.
+     *
+     * @param bust the probability of busting on a hit
+     * @param dealer the dealer's final-total distribution, indexed by total minus 17, with bust at {@link DealerOdds#BUST}
+     * @param stand the expected value of standing, in units of the bet
+     * @param hit the expected value of hitting and then playing on optimally, in units of the bet
+     */
+    public record Odds(double bust, double[] dealer, double stand, double hit) {
+    }
+
+    /**
+     * The number of cards of one value that may leave the shoe before the base is replaced.
+     * It leaves room in the 5-bit memo key fields for the cards removed while the hands are played out.
+     */
+    static final int REBASE_LIMIT = 8;
+
+    // Variables
+    private final boolean hitSoft17;
+    private final Map<Long, double[]> bestMemo = new HashMap<>();
+    private int[] base;
+    private DealerOdds shoe;
+
+    /**
+     * Constructs the calculator for a dealer policy.
+     *
+     * @param hitSoft17 whether the dealer hits a soft 17
+     */
+    public LiveOdds(boolean hitSoft17) {
+        this.hitSoft17 = hitSoft17;
+    }
+
+    /**
+     * Computes the odds of the player's decision.
+     *
+     * @param unseen the number of unseen cards of each value (the shoe and the hole card), indexed by card value minus 2
+     * @param playerTotal the packed total of the player's hand
+     * @param upcard the value of the dealer's upcard (2-11)
+     * @return the odds of the decision
+     */
+    public Odds compute(int[] unseen, int playerTotal, int upcard) {
+        // The upcard belongs to the composition the dealer's distribution starts from
+        int[] counts = unseen.clone();
+        counts[upcard - 2]++;
+        if (!covers(counts)) {
+            base = counts;
+            shoe = new DealerOdds(counts, hitSoft17);
+            bestMemo.clear();
+        }
+
+        // Take the seen cards out of the base composition, the upcard included
+        for (int i = 0; i < counts.length; i++) {
+            for (int n = counts[i]; n < base[i]; n++) {
+                shoe.remove(i + 2);
+            }
+        }
+        shoe.remove(upcard);
+
+        try {
+            double bust = 0;
+            for (int value = 2; value <= 11; value++) {
+                if (HandTotal.value(HandTotal.add(playerTotal, value)) > 21) {
+                    bust += shoe.probability(value);
+                }
+            }
+            double[] dealer = dealer(upcard);
+            double stand = StrategyTableGenerator.standValue(HandTotal.value(playerTotal), dealer);
+            return new Odds(bust, dealer, stand, hitValue(playerTotal, upcard, dealer));
+        } finally {
+            shoe.restore(upcard);
+            for (int i = 0; i < counts.length; i++) {
+                for (int n = counts[i]; n < base[i]; n++) {
+                    shoe.restore(i + 2);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether the composition can be reached from the current base by removing cards.
+     *
+     * @param counts the composition to check
+     * @return true if the current base and its memo tables can be reused
+     */
+    private boolean covers(int[] counts) {
+        if (base == null) {
+            return false;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            int removed = base[i] - counts[i];
+            if (removed < 0 || removed > REBASE_LIMIT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the dealer's final-total distribution for the current shoe, with the upcard taken out.
+     *
+     * @param upcard the value of the dealer's upcard
+     * @return the distribution of final totals
+     */
+    private double[] dealer(int upcard) {
+        // distribution() takes the upcard out itself
+        shoe.restore(upcard);
+        try {
+            return shoe.distribution(upcard);
+        } finally {
+            shoe.remove(upcard);
+        }
+    }
+
+    /**
+     * Returns the expected value of hitting a total and then playing on optimally in the current shoe.
+     *
+     * @param total the packed total of the player's hand
+     * @param upcard the value of the dealer's upcard
+     * @param dealer the dealer's final-total distribution for the current shoe
+     * @return the expected value of hitting
+     */
+    private double hitValue(int total, int upcard, double[] dealer) {
+        double[] best = bestMemo.computeIfAbsent((shoe.key(0) << 4) | upcard, key -> best(dealer));
+        double value = 0;
+        for (int card = 2; card <= 11; card++) {
+            int next = HandTotal.add(total, card);
+            value += shoe.probability(card) * (HandTotal.value(next) > 21 ? -1 : best[next]);
+        }
+        return value;
+    }
+
+    /**
+     * Computes the expected value of the best play (hit or stand) from every packed total in the current shoe.
+     * Totals are filled in {@link StrategyTableGenerator#evaluationOrder()}, after every total reachable by hitting.
+     *
+     * @param dealer the dealer's final-total distribution for the current shoe
+     * @return the expected values indexed by packed total
+     */
+    private double[] best(double[] dealer) {
+        double[] best = new double[2 * HandTotal.SOFT];
+        for (int total : StrategyTableGenerator.evaluationOrder()) {
+            best[total] = bestValue(best, total, dealer);
+        }
+        return best;
+    }
+
+    /**
+     * Returns the expected value of the better of hitting and standing on a packed total.
+     *
+     * @param best the expected values of the totals reachable by hitting
+     * @param total the packed total of the player's hand
+     * @param dealer the dealer's final-total distribution
+     * @return the expected value of the best play
+     */
+    private double bestValue(double[] best, int total, double[] dealer) {
+        double hit = 0;
+        for (int card = 2; card <= 11; card++) {
+            int next = HandTotal.add(total, card);
+            hit += shoe.probability(card) * (HandTotal.value(next) > 21 ? -1 : best[next]);
+        }
+        return Math.max(hit, StrategyTableGenerator.standValue(HandTotal.value(total), dealer));
+    }
+}
@@ -0,0 +1,37 @@
+package strategy;
+
+import model.Card;
+import model.Hand;
+
+/**
+ * A policy deciding the player's next move from the state of the hand and the dealer's upcard.
+ * Works on plain totals so it can be used both with {@link Hand} objects and in bulk simulation.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+@FunctionalInterface
+public interface PlayerPolicy {
+
+    /**
+     * Decides the next move.
+     *
+     * @param total the value of the player's hand
+     * @param soft whether the player's hand is soft
+     * @param upcard the value of the dealer's upcard (2-11)
+     * @param firstDecision whether the player holds only the first two cards
+     * @return the action to take
+     */
+    Action decide(int total, boolean soft, int upcard, boolean firstDecision);
+
+    /**
+     * Decides the next move for a hand against the dealer's upcard.
+     *
+     * @param hand the player's hand
+     * @param upcard the dealer's upcard
+     * @return the action to take
+     */
+    default Action decide(Hand hand, Card upcard) {
+        return decide(hand.calculateValue(), hand.isSoft(), upcard.getValue(), hand.getHandSize() == 2);
+    }
+}
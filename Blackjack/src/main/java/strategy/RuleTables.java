@@ -0,0 +1,140 @@
+package strategy;
+
+import lombok.Getter;
+import model.HandTotal;
+import model.Outcome;
+import model.Rules;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The precomputed decision and settlement tables of one rule set.
+ * The round engine looks up the dealer's draw decision and the outcome of a round here,
+ * instead of re-evaluating the rule configuration for every card.
+ * Tables are built once per rule set and shared, see {@link #of(Rules)}.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public final class RuleTables {
+
+    /**
+     * The number of distinct hand values in the tables (0-31, anything above 21 is a bust).
+     */
+    private static final int VALUES = 32;
+
+    private static final Map<Rules, RuleTables> CACHE = new ConcurrentHashMap<>();
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    // Variables
+    @Getter
+    private final Rules rules;
+    private final boolean[] dealerDraws;
+    private final byte[] settlement;
+    private final double[] payouts;
+    private volatile StrategyTable strategy;
+
+    /**
+     * Builds the tables of a rule set.
+     *
+     * @param rules the rule set
+     */
+    private RuleTables(Rules rules) {
+        this.rules = rules;
+
+        // Dealer decision for every packed total
+        dealerDraws = new boolean[2 * HandTotal.SOFT];
+        for (int total = 0; total < dealerDraws.length; total++) {
+            dealerDraws[total] = DealerOdds.dealerDraws(total, rules.dealerHitsSoft17());
+        }
+
+        // Outcome for every pair of final values, in the order the table settles a round
+        settlement = new byte[VALUES * VALUES];
+        for (int player = 0; player < VALUES; player++) {
+            for (int dealer = 0; dealer < VALUES; dealer++) {
+                Outcome outcome;
+                if (player > 21) {
+                    outcome = Outcome.PLAYER_BUST;
+                } else if (player == 21 && dealer != 21) {
+                    outcome = Outcome.BLACKJACK;
+                } else if (dealer == 21 && player != 21) {
+                    outcome = Outcome.DEALER_BLACKJACK;
+                } else if (dealer > 21) {
+                    outcome = Outcome.DEALER_BUST;
+                } else if (dealer > player) {
+                    outcome = Outcome.DEALER_HIGHER;
+                } else if (player > dealer) {
+                    outcome = Outcome.PLAYER_HIGHER;
+                } else {
+                    outcome = Outcome.PUSH;
+                }
+                settlement[player * VALUES + dealer] = (byte) outcome.ordinal();
+            }
+        }
+
+        // Units won or lost per outcome; a surrender costs half the bet
+        payouts = new double[OUTCOMES.length];
+        for (Outcome outcome : OUTCOMES) {
+            payouts[outcome.ordinal()] = outcome.getResult();
+        }
+        payouts[Outcome.SURRENDER.ordinal()] = -0.5;
+    }
+
+    /**
+     * Returns the tables of a rule set, building them on first use.
+     *
+     * @param rules the rule set
+     * @return the shared tables of the rule set
+     */
+    public static RuleTables of(Rules rules) {
+        return CACHE.computeIfAbsent(rules, RuleTables::new);
+    }
+
+    /**
+     * Checks whether the dealer draws on the given packed total.
+     *
+     * @param packedTotal the packed total of the dealer's hand, see {@link HandTotal}
+     * @return true if the dealer must take another card
+     */
+    public boolean dealerDraws(int packedTotal) {
+        return dealerDraws[packedTotal];
+    }
+
+    /**
+     * Returns the outcome of a round from the final values of both hands.
+     *
+     * @param playerValue the value of the player's hand
+     * @param dealerValue the value of the dealer's hand
+     * @return the outcome of the round
+     */
+    public Outcome settle(int playerValue, int dealerValue) {
+        return OUTCOMES[settlement[Math.min(playerValue, VALUES - 1) * VALUES + Math.min(dealerValue, VALUES - 1)]];
+    }
+
+    /**
+     * Returns the units won (positive) or lost (negative) for an outcome on a bet of one unit.
+     * A two-card 21 pays the blackjack payout of the rules.
+     *
+     * @param outcome the outcome of the round
+     * @param natural whether the player's 21 was made with the first two cards
+     * @return the payout of the round
+     */
+    public double payout(Outcome outcome, boolean natural) {
+        return natural && outcome == Outcome.BLACKJACK ? rules.blackjackPayout() : payouts[outcome.ordinal()];
+    }
+
+    /**
+     * Returns the player strategy table of the rule set, loading it on first use.
+     *
+     * @return the strategy table
+     */
+    public StrategyTable strategy() {
+        StrategyTable table = strategy;
+        if (table == null) {
+            table = StrategyTable.load(rules);
+            strategy = table;
+        }
+        return table;
+    }
+}
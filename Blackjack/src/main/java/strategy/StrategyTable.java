@@ -0,0 +1,169 @@
+package strategy;
+
+import lombok.Getter;
+import model.Rules;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * A precomputed player decision table for one rule set.
+ * The decisions are held in a flat byte array of {@link Action} codes, indexed by hand state
+ * (hard totals 4-21, then soft totals 12-21) and dealer upcard (2-11), so a lookup is a single array read.
+ * The array holds two layers: decisions on later cards (hit or stand) followed by decisions on the
+ * first two cards, where doubling and surrender may apply if the rules allow them.
+ * Tables are written by {@link StrategyTableGenerator} in a compact binary form and bundled as
+ * classpath resources under {@link #RESOURCE_DIR}.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+@Getter
+public class StrategyTable {
+
+    /**
+     * The classpath directory holding the precomputed tables.
+     */
+    public static final String RESOURCE_DIR = "/strategy/";
+
+    /**
+     * The file extension of a table artifact.
+     */
+    public static final String EXTENSION = ".bjs";
+
+    /**
+     * The number of dealer upcards (2-11).
+     */
+    public static final int UPCARDS = 10;
+
+    /**
+     * The number of hard hand states (4-21).
+     */
+    public static final int HARD_STATES = 18;
+
+    /**
+     * The number of hand states: hard totals 4-21 followed by soft totals 12-21.
+     */
+    public static final int STATES = HARD_STATES + 10;
+
+    /**
+     * The number of entries in one layer of the table.
+     */
+    public static final int LAYER = STATES * UPCARDS;
+
+    /**
+     * The magic number at the start of a table artifact ("BJST").
+     */
+    private static final int MAGIC = 0x424A5354;
+
+    /**
+     * The version of the artifact format.
+     */
+    private static final int VERSION = 3;
+
+    // Variables
+    private final Rules rules;
+    private final byte[] table;
+
+    /**
+     * Constructs a table from its rule set and decision codes.
+     *
+     * @param rules the rule set the table was computed for
+     * @param table the action codes, two layers of {@link #LAYER} entries
+     */
+    public StrategyTable(Rules rules, byte[] table) {
+        if (table.length != 2 * LAYER) {
+            throw new IllegalArgumentException("A strategy table has " + 2 * LAYER + " entries, got " + table.length);
+        }
+        this.rules = rules;
+        this.table = table;
+    }
+
+    /**
+     * Returns the index of a situation in the flat table.
+     *
+     * @param total the value of the player's hand (4-21)
+     * @param soft whether the player's hand is soft
+     * @param upcard the value of the dealer's upcard (2-11)
+     * @return the index into the table
+     */
+    public static int index(int total, boolean soft, int upcard) {
+        int state = soft ? HARD_STATES + total - 12 : total - 4;
+        return state * UPCARDS + upcard - 2;
+    }
+
+    /**
+     * Returns the decision for the given situation.
+     *
+     * @param total the value of the player's hand (4-21)
+     * @param soft whether the player's hand is soft
+     * @param upcard the value of the dealer's upcard (2-11)
+     * @param firstDecision whether the player holds only the first two cards
+     * @return the action to take
+     */
+    public Action decide(int total, boolean soft, int upcard, boolean firstDecision) {
+        return Action.fromCode(table[(firstDecision ? LAYER : 0) + index(total, soft, upcard)]);
+    }
+
+    /**
+     * Writes the table in its binary form: header, rule set and the action codes.
+     *
+     * @param out the stream to write to
+     * @throws IOException if the table cannot be written
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(rules.decks());
+        data.writeBoolean(rules.dealerHitsSoft17());
+        data.writeDouble(rules.blackjackPayout());
+        data.writeBoolean(rules.doubleAllowed());
+        data.writeBoolean(rules.surrenderAllowed());
+        data.writeDouble(rules.penetration());
+        data.write(table);
+        data.flush();
+    }
+
+    /**
+     * Reads a table written by {@link #write(OutputStream)}.
+     *
+     * @param in the stream to read from
+     * @return the table
+     * @throws IOException if the stream does not hold a valid table
+     */
+    public static StrategyTable read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+            throw new IOException("Not a strategy table artifact");
+        }
+        Rules rules = new Rules(data.readInt(), data.readBoolean(), data.readDouble(),
+                data.readBoolean(), data.readBoolean(), data.readDouble(), false);
+        byte[] table = new byte[2 * LAYER];
+        data.readFully(table);
+        return new StrategyTable(rules, table);
+    }
+
+    /**
+     * Loads the precomputed table for a rule set from the classpath,
+     * computing it on the spot if no artifact was bundled for these rules.
+     *
+     * @param rules the rule set
+     * @return the strategy table
+     */
+    public static StrategyTable load(Rules rules) {
+        try (InputStream in = StrategyTable.class.getResourceAsStream(RESOURCE_DIR + rules.id() + EXTENSION)) {
+            if (in == null) {
+                return StrategyTableGenerator.generate(rules);
+            }
+            // The artifact is shared by rule sets differing only in rules that do not change decisions
+            return new StrategyTable(rules, read(in).getTable());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load strategy table " + rules.id(), e);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package strategy;
+
+import model.HandTotal;
+import model.Rules;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Derives the optimal decision table for a rule set and writes precomputed tables as artifacts.
+ * Later cards are played hit/stand; on the first two cards doubling and surrender are considered
+ * when the rules allow them.
+ * The dealer's final-total distribution is computed exactly for the shoe composition (without the upcard);
+ * the player's draws are taken from the same composition, as in a classic basic-strategy calculation.
+ * Outcomes follow the table's settlement: a bust loses, otherwise the higher total wins and equal totals push.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public final class StrategyTableGenerator {
+
+    private StrategyTableGenerator() {
+    }
+
+    /**
+     * Computes the decision table for a rule set.
+     *
+     * @param rules the rule set
+     * @return the strategy table
+     */
+    public static StrategyTable generate(Rules rules) {
+        byte[] table = new byte[2 * StrategyTable.LAYER];
+        int[] counts = rules.shoeComposition();
+        DealerOdds dealerOdds = new DealerOdds(counts, rules.dealerHitsSoft17());
+
+        for (int upcard = 2; upcard <= 11; upcard++) {
+            double[] dealer = dealerOdds.distribution(upcard);
+
+            // Probability of each card value for the player, with the upcard out of the shoe
+            double[] draw = new double[counts.length];
+            int left = 52 * rules.decks() - 1;
+            for (int i = 0; i < counts.length; i++) {
+                draw[i] = (double) (counts[i] - (i == upcard - 2 ? 1 : 0)) / left;
+            }
+
+            // Expected value of the best play from every packed total, in an order where hitting only reaches totals done
+            double[] best = new double[2 * HandTotal.SOFT];
+            for (int total : evaluationOrder()) {
+                decide(table, best, total, upcard, dealer, draw, rules);
+            }
+        }
+        return new StrategyTable(rules, table);
+    }
+
+    /**
+     * Returns the packed totals in an order where every total reachable by hitting comes earlier:
+     * hard 21 down to 11, then soft 21 down to 12, then hard 10 down to 4.
+     * A hard 11 or more can only reach higher hard totals, a soft total a higher soft total or a hard 12 or more,
+     * and a hard 10 or less also a soft total when an ace is drawn.
+     *
+     * @return the packed totals in evaluation order
+     */
+    static int[] evaluationOrder() {
+        int[] order = new int[18 + 10];
+        int i = 0;
+        for (int total = 21; total >= 11; total--) {
+            order[i++] = total;
+        }
+        for (int total = 21; total >= 12; total--) {
+            order[i++] = total | HandTotal.SOFT;
+        }
+        for (int total = 10; total >= 4; total--) {
+            order[i++] = total;
+        }
+        return order;
+    }
+
+    /**
+     * Builds the table of the dealer-mimic policy: the player plays like the dealer in {@code Game.dealerTurn},
+     * hitting below 17 (and on a soft 17 under H17 rules) and standing otherwise, whatever the upcard.
+     * It is the usual baseline basic strategy is compared against.
+     *
+     * @param rules the rule set
+     * @return the strategy table of the dealer-mimic policy
+     */
+    public static StrategyTable dealerMimic(Rules rules) {
+        byte[] table = new byte[2 * StrategyTable.LAYER];
+        for (int upcard = 2; upcard <= 11; upcard++) {
+            for (int total = 4; total <= 21; total++) {
+                mimic(table, total, upcard, rules);
+            }
+            for (int total = 12; total <= 21; total++) {
+                mimic(table, total | HandTotal.SOFT, upcard, rules);
+            }
+        }
+        return new StrategyTable(rules, table);
+    }
+
+    /**
+     * Stores the dealer's decision on a packed total in both layers of the table.
+     *
+     * @param table the table being filled
+     * @param total the packed total of the player's hand
+     * @param upcard the value of the dealer's upcard
+     * @param rules the rule set
+     */
+    private static void mimic(byte[] table, int total, int upcard, Rules rules) {
+        Action action = DealerOdds.dealerDraws(total, rules.dealerHitsSoft17()) ? Action.HIT : Action.STAND;
+        int index = StrategyTable.index(HandTotal.value(total), HandTotal.isSoft(total), upcard);
+        table[index] = action.getCode();
+        table[StrategyTable.LAYER + index] = action.getCode();
+    }
+
+    /**
+     * Compares the actions available on a packed total and stores the best ones in both layers of the table.
+     * Every total reachable by hitting must already be evaluated, see {@link #evaluationOrder()}.
+     *
+     * @param table the table being filled
+     * @param best the expected values of the best play on later cards, indexed by packed total
+     * @param total the packed total of the player's hand
+     * @param upcard the value of the dealer's upcard
+     * @param dealer the dealer's final-total distribution for the upcard
+     * @param draw the probability of each card value
+     * @param rules the rule set
+     */
+    private static void decide(byte[] table, double[] best, int total, int upcard, double[] dealer, double[] draw, Rules rules) {
+        double stand = standValue(HandTotal.value(total), dealer);
+        double hit = 0;
+        double doubled = 0;
+        for (int i = 0; i < draw.length; i++) {
+            int next = HandTotal.add(total, i + 2);
+            boolean bust = HandTotal.value(next) > 21;
+            hit += draw[i] * (bust ? -1 : best[next]);
+            doubled += draw[i] * 2 * (bust ? -1 : standValue(HandTotal.value(next), dealer));
+        }
+        int index = StrategyTable.index(HandTotal.value(total), HandTotal.isSoft(total), upcard);
+
+        // Later cards: hit or stand
+        Action action = hit > stand ? Action.HIT : Action.STAND;
+        best[total] = Math.max(hit, stand);
+        table[index] = action.getCode();
+
+        // First two cards: doubling and surrender compete too
+        double value = best[total];
+        if (rules.doubleAllowed() && doubled > value) {
+            action = Action.DOUBLE;
+            value = doubled;
+        }
+        if (rules.surrenderAllowed() && -0.5 > value) {
+            action = Action.SURRENDER;
+        }
+        table[StrategyTable.LAYER + index] = action.getCode();
+    }
+
+    /**
+     * Returns the expected value of standing on a total against the dealer's final-total distribution.
+     *
+     * @param total the value of the player's hand
+     * @param dealer the dealer's final-total distribution
+     * @return the expected value of standing, in units of the bet
+     */
+    static double standValue(int total, double[] dealer) {
+        double value = dealer[DealerOdds.BUST];
+        for (int dealerTotal = 17; dealerTotal <= 21; dealerTotal++) {
+            if (total > dealerTotal) {
+                value += dealer[dealerTotal - 17];
+            } else if (total < dealerTotal) {
+                value -= dealer[dealerTotal - 17];
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns the rule variants precomputed at build time: 1 to 8 decks, S17 and H17, 3:2 and 6:5 payouts,
+     * with and without doubling. Penetration and surrender are left at their defaults.
+     *
+     * @return the list of rule sets
+     */
+    public static List<Rules> variants() {
+        List<Rules> variants = new ArrayList<>();
+        for (int decks = 1; decks <= 8; decks++) {
+            for (boolean hitSoft17 : new boolean[]{false, true}) {
+                for (double payout : new double[]{1.5, 1.2}) {
+                    for (boolean doubleAllowed : new boolean[]{false, true}) {
+                        variants.add(new Rules(decks, hitSoft17, payout, doubleAllowed, false, Rules.DEFAULT.penetration(), false));
+                    }
+                }
+            }
+        }
+        return variants;
+    }
+
+    /**
+     * Computes the tables of all {@link #variants()} in parallel and writes them into a directory,
+     * one artifact per rule set named after {@link Rules#id()}.
+     *
+     * @param args the output directory
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Usage: StrategyTableGenerator <output directory>");
+            System.exit(1);
+        }
+        Path directory = Path.of(args[0]);
+
+        List<Rules> variants = variants();
+        variants.parallelStream()
+                .map(StrategyTableGenerator::generate)
+                .forEach(table -> write(table, directory.resolve(table.getRules().id() + StrategyTable.EXTENSION)));
+        System.out.println("Wrote " + variants.size() + " strategy tables to " + directory);
+    }
+
+    /**
+     * Writes a table artifact to a file.
+     *
+     * @param table the table to write
+     * @param file the file to write to
+     */
+    private static void write(StrategyTable table, Path file) {
+        try {
+            Files.createDirectories(file.getParent());
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                table.write(out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write " + file, e);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package view;
+
+import model.Card;
+import model.Rank;
+import model.Suit;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cache of the scaled card images used by the View.
+ * The images are classpath resources under {@link Card#IMAGE_DIR}, so the game runs from any directory.
+ * Every image is decoded and scaled only once, on a background executor,
+ * so the Swing thread never waits for resource loading while cards are drawn.
+ * When the packed bundle written by {@link CardPacker} is present, all images come from one sprite sheet
+ * read in a single sequential pass instead of 53 separate resources.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public final class CardImages {
+
+    /**
+     * The file name of the face-down card image.
+     */
+    public static final String CARD_DOWN = "CardDown.png";
+
+    /**
+     * The file name of the packed bundle (sprite sheet plus offsets) inside {@link Card#IMAGE_DIR}.
+     */
+    public static final String PACK_FILE = "cards.pack";
+
+    /**
+     * The magic number at the start of the packed bundle ("BJCP").
+     */
+    static final int PACK_MAGIC = 0x424A4350;
+
+    // Variables
+    private static final Map<String, CompletableFuture<ImageIcon>> CACHE = new ConcurrentHashMap<>();
+    private static final ExecutorService LOADER = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+            runnable -> {
+                Thread thread = new Thread(runnable, "card-image-loader");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private static final CompletableFuture<Map<String, ImageIcon>> PACK =
+            CardImages.class.getResource(Card.IMAGE_DIR + PACK_FILE) != null
+                    ? CompletableFuture.supplyAsync(CardImages::loadPack, LOADER)
+                    : null;
+
+    private CardImages() {
+    }
+
+    /**
+     * Starts decoding all 53 card images in the background and returns immediately.
+     * Called at launch so the images are ready by the time the first round is dealt.
+     */
+    public static void preload() {
+        for (String fileName : fileNames()) {
+            request(fileName);
+        }
+    }
+
+    /**
+     * Returns the scaled image of the given card, waiting for it if it is still being decoded.
+     *
+     * @param card the card to draw
+     * @return the image of the card
+     */
+    public static ImageIcon get(Card card) {
+        return request(fileName(card)).join();
+    }
+
+    /**
+     * Returns the scaled image of the face-down card.
+     *
+     * @return the image of the card back
+     */
+    public static ImageIcon getCardDown() {
+        return request(CARD_DOWN).join();
+    }
+
+    /**
+     * Returns the file name of the image of the given card (e.g. "AceSpades.png").
+     *
+     * @param card the card
+     * @return the file name of the card image
+     */
+    public static String fileName(Card card) {
+        return card.rank().toString() + card.suit().toString() + ".png";
+    }
+
+    /**
+     * Returns the file names of all 53 card images, the face-down card last.
+     *
+     * @return the list of image file names
+     */
+    static List<String> fileNames() {
+        List<String> fileNames = new ArrayList<>();
+        for (Suit suit : Suit.values()) {
+            for (Rank rank : Rank.values()) {
+                fileNames.add(fileName(new Card(suit, rank)));
+            }
+        }
+        fileNames.add(CARD_DOWN);
+        return fileNames;
+    }
+
+    /**
+     * Returns the pending or finished load of the given image, scheduling it if it was never requested.
+     *
+     * @param fileName the file name of the image
+     * @return the future holding the scaled image
+     */
+    private static CompletableFuture<ImageIcon> request(String fileName) {
+        return CACHE.computeIfAbsent(fileName, name -> PACK != null
+                ? PACK.thenApply(images -> images.get(name))
+                : CompletableFuture.supplyAsync(() -> load(name), LOADER));
+    }
+
+    /**
+     * Decodes a single card image resource and scales it to the card size.
+     *
+     * @param fileName the file name of the image
+     * @return the scaled image
+     */
+    private static ImageIcon load(String fileName) {
+        return new ImageIcon(scale(read(fileName)));
+    }
+
+    /**
+     * Reads the packed bundle in one pass and cuts the sprite sheet into the card images.
+     * The bundle holds the magic number, the card size, the number of images, a table of
+     * (file name, x, y) offsets and finally the PNG sprite sheet itself.
+     *
+     * @return the scaled images keyed by file name
+     */
+    private static Map<String, ImageIcon> loadPack() {
+        try (InputStream in = CardImages.class.getResourceAsStream(Card.IMAGE_DIR + PACK_FILE)) {
+            DataInputStream data = new DataInputStream(new ByteArrayInputStream(in.readAllBytes()));
+            if (data.readInt() != PACK_MAGIC || data.readInt() != Card.CARD_WIDTH || data.readInt() != Card.CARD_HEIGHT) {
+                throw new IOException("Unsupported card bundle " + PACK_FILE);
+            }
+
+            // Read the offsets table
+            int count = data.readInt();
+            String[] names = new String[count];
+            int[] x = new int[count];
+            int[] y = new int[count];
+            for (int i = 0; i < count; i++) {
+                names[i] = data.readUTF();
+                x[i] = data.readInt();
+                y[i] = data.readInt();
+            }
+
+            // The rest of the bundle is the sprite sheet
+            BufferedImage sheet = ImageIO.read(data);
+            Map<String, ImageIcon> images = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                images.put(names[i], new ImageIcon(sheet.getSubimage(x[i], y[i], Card.CARD_WIDTH, Card.CARD_HEIGHT)));
+            }
+            return images;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load card bundle " + PACK_FILE, e);
+        }
+    }
+
+    /**
+     * Decodes a card image resource at its original size.
+     *
+     * @param fileName the file name of the image
+     * @return the decoded image
+     */
+    static BufferedImage read(String fileName) {
+        try (InputStream in = CardImages.class.getResourceAsStream(Card.IMAGE_DIR + fileName)) {
+            if (in == null) {
+                throw new IOException("Missing resource " + Card.IMAGE_DIR + fileName);
+            }
+            return ImageIO.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load card image " + fileName, e);
+        }
+    }
+
+    /**
+     * Scales an image to the card size.
+     * The scaled instance is fully loaded (ImageIcon waits for it) and drawn into a buffered image,
+     * so the scaling is done here and not on every paint.
+     *
+     * @param source the image at its original size
+     * @return the scaled image
+     */
+    static BufferedImage scale(BufferedImage source) {
+        Image smooth = new ImageIcon(source.getScaledInstance(Card.CARD_WIDTH, Card.CARD_HEIGHT, Image.SCALE_SMOOTH)).getImage();
+        BufferedImage scaled = new BufferedImage(Card.CARD_WIDTH, Card.CARD_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.drawImage(smooth, 0, 0, null);
+        graphics.dispose();
+        return scaled;
+    }
+}
@@ -0,0 +1,97 @@
+package view;
+
+import model.Card;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Build-time tool that packs the 53 card images into a single bundle read by {@link CardImages}.
+ * The images are scaled to the card size and laid out on one sprite sheet, preceded by a table of offsets.
+ * Run by the "packed-assets" Maven profile with the output directory as the only argument.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public final class CardPacker {
+
+    /**
+     * The number of cards in one row of the sprite sheet.
+     */
+    private static final int COLUMNS = 8;
+
+    private CardPacker() {
+    }
+
+    /**
+     * Writes the packed bundle into the given directory.
+     *
+     * @param args the directory to write {@link CardImages#PACK_FILE} to
+     * @throws IOException if the bundle cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: CardPacker <output directory>");
+            System.exit(1);
+        }
+
+        List<String> names = CardImages.fileNames();
+        int rows = (names.size() + COLUMNS - 1) / COLUMNS;
+
+        // Draw every scaled card into its cell of the sprite sheet
+        BufferedImage sheet = new BufferedImage(COLUMNS * Card.CARD_WIDTH, rows * Card.CARD_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = sheet.createGraphics();
+        for (int i = 0; i < names.size(); i++) {
+            graphics.drawImage(CardImages.scale(CardImages.read(names.get(i))), x(i), y(i), null);
+        }
+        graphics.dispose();
+
+        Path output = Path.of(args[0]).resolve(CardImages.PACK_FILE);
+        Files.createDirectories(output.getParent());
+        try (OutputStream file = Files.newOutputStream(output);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            // Header and offsets table
+            out.writeInt(CardImages.PACK_MAGIC);
+            out.writeInt(Card.CARD_WIDTH);
+            out.writeInt(Card.CARD_HEIGHT);
+            out.writeInt(names.size());
+            for (int i = 0; i < names.size(); i++) {
+                out.writeUTF(names.get(i));
+                out.writeInt(x(i));
+                out.writeInt(y(i));
+            }
+
+            // Sprite sheet
+            ImageIO.write(sheet, "png", out);
+        }
+        System.out.println("Packed " + names.size() + " card images into " + output);
+    }
+
+    /**
+     * Returns the horizontal offset of the cell with the given index.
+     *
+     * @param index the index of the image
+     * @return the x offset in pixels
+     */
+    private static int x(int index) {
+        return (index % COLUMNS) * Card.CARD_WIDTH;
+    }
+
+    /**
+     * Returns the vertical offset of the cell with the given index.
+     *
+     * @param index the index of the image
+     * @return the y offset in pixels
+     */
+    private static int y(int index) {
+        return (index / COLUMNS) * Card.CARD_HEIGHT;
+    }
+}
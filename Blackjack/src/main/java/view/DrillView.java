@@ -0,0 +1,197 @@
+package view;
+
+import controller.Drill;
+import lombok.Getter;
+import model.Card;
+import model.Rules;
+import strategy.Action;
+import strategy.DrillGenerator;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.List;
+
+/**
+ * The window of the drill mode: the dealer's upcard and the player's two cards, a button per answer allowed by the rules,
+ * the verdict on the last answer and the accuracy so far.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+@Getter
+public class DrillView {
+
+    // Variables
+    private final JFrame window;
+    private final JLabel upcardLabel, situationLabel, feedbackLabel, statsLabel;
+    private final JLabel[] playerCardLabels = new JLabel[2];
+    private final JButton hitButton, standButton, doubleButton, surrenderButton, exitButton;
+
+    /**
+     * Constructs the drill window.
+     *
+     * @param drill the drill controlling the window
+     * @param rules the rules, which decide whether doubling and surrender can be answered
+     */
+    public DrillView(Drill drill, Rules rules) {
+        // Create window
+        window = new JFrame("Blackjack Drill");
+        window.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        window.setSize(600, 560);
+        window.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                drill.exit();
+            }
+        });
+
+        JPanel mainPanel = panel(new BorderLayout());
+        window.add(mainPanel);
+
+        // Create table with the upcard above the player's cards
+        JPanel tablePanel = panel(null);
+        tablePanel.setLayout(new BoxLayout(tablePanel, BoxLayout.Y_AXIS));
+        upcardLabel = new JLabel(CardImages.getCardDown());
+        situationLabel = label("", 16f);
+        JPanel dealerPanel = panel(new FlowLayout());
+        dealerPanel.add(upcardLabel);
+        JPanel playerPanel = panel(new FlowLayout());
+        for (int i = 0; i < playerCardLabels.length; i++) {
+            playerCardLabels[i] = new JLabel(CardImages.getCardDown());
+            playerPanel.add(playerCardLabels[i]);
+        }
+        tablePanel.add(dealerPanel);
+        tablePanel.add(situationLabel);
+        tablePanel.add(playerPanel);
+        mainPanel.add(tablePanel, BorderLayout.CENTER);
+
+        // Create answer buttons, only for the actions the rules allow
+        hitButton = button("Hit", "Take another card (H).", e -> drill.answer(Action.HIT));
+        standButton = button("Stand", "Stop taking cards (S).", e -> drill.answer(Action.STAND));
+        doubleButton = button("Double", "Double the bet for one card (D).", e -> drill.answer(Action.DOUBLE));
+        surrenderButton = button("Surrender", "Give up half the bet (R).", e -> drill.answer(Action.SURRENDER));
+        exitButton = button("Exit", "Exit the drill (Esc).", e -> drill.exit());
+        doubleButton.setVisible(rules.doubleAllowed());
+        surrenderButton.setVisible(rules.surrenderAllowed());
+        JPanel buttonPanel = panel(new FlowLayout(FlowLayout.CENTER));
+        buttonPanel.add(hitButton);
+        buttonPanel.add(standButton);
+        buttonPanel.add(doubleButton);
+        buttonPanel.add(surrenderButton);
+        buttonPanel.add(exitButton);
+
+        // Create feedback and statistics
+        feedbackLabel = label("Choose the basic strategy play.", 14f);
+        statsLabel = label(" ", 12f);
+        JPanel southPanel = panel(null);
+        southPanel.setLayout(new BoxLayout(southPanel, BoxLayout.Y_AXIS));
+        southPanel.add(buttonPanel);
+        southPanel.add(feedbackLabel);
+        southPanel.add(statsLabel);
+        mainPanel.add(southPanel, BorderLayout.SOUTH);
+
+        // Make window visible
+        window.setVisible(true);
+    }
+
+    /**
+     * Shows the cards of a scenario.
+     *
+     * @param scenario the scenario
+     */
+    public void showScenario(DrillGenerator.Scenario scenario) {
+        upcardLabel.setIcon(CardImages.get(scenario.upcard()));
+        List<Card> cards = scenario.cards();
+        for (int i = 0; i < playerCardLabels.length; i++) {
+            playerCardLabels[i].setIcon(CardImages.get(cards.get(i)));
+        }
+        situationLabel.setText("Your " + DrillGenerator.describe(scenario.situation()));
+    }
+
+    /**
+     * Shows whether the last answer was right, and the right answer if it was not.
+     *
+     * @param scenario the scenario answered
+     * @param action the player's answer
+     * @param right whether the answer was right
+     */
+    public void showFeedback(DrillGenerator.Scenario scenario, Action action, boolean right) {
+        String situation = DrillGenerator.describe(scenario.situation());
+        if (right) {
+            feedbackLabel.setForeground(Color.decode("#8fe388"));
+            feedbackLabel.setText("Right: " + name(action) + " on " + situation + ".");
+        } else {
+            feedbackLabel.setForeground(Color.decode("#ff8a80"));
+            feedbackLabel.setText("Wrong: " + name(scenario.answer()) + " on " + situation + ", not " + name(action) + ".");
+        }
+    }
+
+    /**
+     * Shows the accuracy, the streak of right answers and the weakest situation.
+     *
+     * @param drill the drill
+     */
+    public void showStats(Drill drill) {
+        int weakest = drill.getGenerator().weakest();
+        statsLabel.setText(String.format("Accuracy: %.1f%% (%d/%d)   Streak: %d   Weakest: %s", 100 * drill.accuracy(),
+                drill.getCorrect(), drill.getAnswered(), drill.getStreak(),
+                weakest < 0 ? "-" : DrillGenerator.describe(weakest)
+                        + String.format(" (%.0f%% wrong)", 100 * drill.getGenerator().errorRate(weakest))));
+    }
+
+    /**
+     * Returns the name of an action as shown on its button.
+     *
+     * @param action the action
+     * @return the name in lower case
+     */
+    private static String name(Action action) {
+        return action.name().toLowerCase();
+    }
+
+    /**
+     * Creates a panel with the background of the table.
+     *
+     * @param layout the layout of the panel, or null to set it later
+     * @return the panel
+     */
+    private static JPanel panel(LayoutManager layout) {
+        JPanel panel = new JPanel(layout);
+        panel.setBackground(Color.decode("#18320e"));
+        return panel;
+    }
+
+    /**
+     * Creates a centered white label.
+     *
+     * @param text the text
+     * @param size the font size
+     * @return the label
+     */
+    private static JLabel label(String text, float size) {
+        JLabel label = new JLabel(text, SwingConstants.CENTER);
+        label.setForeground(Color.WHITE);
+        label.setFont(label.getFont().deriveFont(Font.PLAIN, size));
+        label.setAlignmentX(Component.CENTER_ALIGNMENT);
+        return label;
+    }
+
+    /**
+     * Creates an answer button.
+     *
+     * @param text the text of the button
+     * @param tooltip the tooltip of the button
+     * @param listener the action of the button
+     * @return the button
+     */
+    private static JButton button(String text, String tooltip, ActionListener listener) {
+        JButton button = new JButton(text);
+        button.setPreferredSize(new Dimension(110, 50));
+        button.setToolTipText(tooltip);
+        button.addActionListener(listener);
+        return button;
+    }
+}
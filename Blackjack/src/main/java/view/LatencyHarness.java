@@ -0,0 +1,371 @@
+package view;
+
+import controller.Game;
+import model.Rules;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Measures how quickly the table answers the player: scripts thousands of Hit, Stand and Next Round key presses
+ * through the key bindings of {@link Game#registerKeyBindings(View)} and times each one from the key event to the
+ * end of the first repaint that shows its effect, while every event dispatched on the Swing event thread is timed to
+ * find stalls. The numbers make UI regressions visible, such as card images decoded on the event thread.
+ * <p>
+ * The harness needs a display but no screen: run it under Xvfb, e.g.
+ * {@code xvfb-run java -jar Blackjack.jar --latency=5000 --decks=6}. The keys are typed by a {@link Robot}, so they
+ * take the whole path from the window system; if the window cannot get the keyboard focus they are posted to the
+ * event queue instead. The results are counted instead of shown in the banner, and the game keeps its files in a
+ * temporary home directory, so the player's own saved game is not touched.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public class LatencyHarness {
+
+    /**
+     * The default number of key presses.
+     */
+    public static final int DEFAULT_PRESSES = 2000;
+
+    /**
+     * A dispatch taking longer than one frame at 60 Hz is a stall.
+     */
+    public static final long STALL_NANOS = 16_666_667;
+
+    /**
+     * How long a press may take to show before it is counted as lost.
+     */
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    // Variables
+    private final TimingQueue queue = new TimingQueue();
+    private final TimingRepaintManager repaints = new TimingRepaintManager();
+    private final Random script = new Random(42);
+    private Game game;
+    private Robot robot;
+    private int results;
+
+    /**
+     * Runs the harness with the table rules and {@code --latency[=<presses>]} from the command line.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        if (GraphicsEnvironment.isHeadless()) {
+            System.err.println("The latency harness needs a display, e.g. xvfb-run");
+            System.exit(1);
+        }
+        int presses = DEFAULT_PRESSES;
+        for (String arg : args) {
+            if (arg.startsWith("--latency=")) {
+                presses = (int) Double.parseDouble(arg.substring("--latency=".length()));
+            }
+        }
+        try {
+            System.setProperty("blackjack.home", Files.createTempDirectory("blackjack-latency").toString());
+            new LatencyHarness().run(Rules.parse(args, Set.of("latency")), presses, System.out);
+        } catch (IllegalArgumentException | IOException | UncheckedIOException e) {
+            System.err.println("Latency run failed: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            System.err.println("Latency run interrupted");
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Opens a table, plays it with key presses and prints the latencies.
+     *
+     * @param rules the rules of the table
+     * @param presses the number of key presses
+     * @param report the stream the result is printed to
+     * @throws HeadlessException if there is no display to open the table on
+     * @throws InterruptedException if the run was interrupted
+     */
+    public void run(Rules rules, int presses, PrintStream report) throws InterruptedException {
+        if (GraphicsEnvironment.isHeadless()) {
+            throw new HeadlessException("The latency harness needs a display, e.g. xvfb-run");
+        }
+        // Started the way the application starts, so cached images are measured as they are used
+        CardImages.preload();
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(queue);
+        onEventThread(() -> {
+            RepaintManager.setCurrentManager(repaints);
+            game = new Game("latency", rules);
+            game.getView().setResultHandler(result -> results++);
+            return null;
+        });
+        JFrame window = game.getView().getWindow();
+        if (focus(window)) {
+            try {
+                robot = new Robot();
+            } catch (AWTException e) {
+                // Posted to the event queue instead
+            }
+        }
+        queue.reset();
+
+        long[] latencies = new long[presses];
+        int[] counts = new int[3];
+        int lost = 0;
+        for (int i = 0; i < presses; i++) {
+            State before = onEventThread(this::state);
+            int key = choose(before);
+            counts[key == KeyEvent.VK_H ? 0 : key == KeyEvent.VK_S ? 1 : 2]++;
+
+            CountDownLatch shown = repaints.expect(before);
+            long start = System.nanoTime();
+            press(window, key, before.phase() == Game.Phase.NOT_STARTED);
+            if (shown.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                latencies[i - lost] = repaints.shownAt() - start;
+            } else {
+                lost++;
+                repaints.expect(null);
+            }
+        }
+        report(report, Arrays.copyOf(latencies, presses - lost), counts, lost);
+        game.getEngine().close();
+    }
+
+    /**
+     * Chooses the next key from the phase of the round: Ctrl+N to start, Next Round after a round,
+     * and during the player's turn Hit below 12, Stand from 17 and either of them in between.
+     *
+     * @param state the state of the table
+     * @return the key code
+     */
+    private int choose(State state) {
+        return switch (state.phase()) {
+            case NOT_STARTED, ROUND_OVER -> KeyEvent.VK_N;
+            case PLAYER_TURN -> state.playerTotal() < 12 || state.playerTotal() < 17 && script.nextBoolean()
+                    ? KeyEvent.VK_H : KeyEvent.VK_S;
+        };
+    }
+
+    /**
+     * Types a key into the window.
+     *
+     * @param window the game window
+     * @param key the key code
+     * @param control whether Ctrl is held
+     */
+    private void press(JFrame window, int key, boolean control) {
+        if (robot != null) {
+            if (control) {
+                robot.keyPress(KeyEvent.VK_CONTROL);
+            }
+            robot.keyPress(key);
+            robot.keyRelease(key);
+            if (control) {
+                robot.keyRelease(KeyEvent.VK_CONTROL);
+            }
+            return;
+        }
+        Component target = window.getFocusOwner() != null ? window.getFocusOwner() : window.getRootPane();
+        int modifiers = control ? InputEvent.CTRL_DOWN_MASK : 0;
+        long now = System.currentTimeMillis();
+        queue.postEvent(new KeyEvent(target, KeyEvent.KEY_PRESSED, now, modifiers, key, KeyEvent.CHAR_UNDEFINED));
+        queue.postEvent(new KeyEvent(target, KeyEvent.KEY_RELEASED, now, modifiers, key, KeyEvent.CHAR_UNDEFINED));
+    }
+
+    /**
+     * Reads what a press is expected to change. Called on the Swing event thread.
+     *
+     * @return the state of the table
+     */
+    private State state() {
+        return new State(game.getPhase(), game.getPlayer().getHand().getHandSize(),
+                game.getDealer().getHand().getHandSize(), game.getPlayer().getHand().calculateValue(),
+                game.getScoreboard().snapshot().rounds());
+    }
+
+    /**
+     * Brings the window to the front and waits for it to get the keyboard focus.
+     *
+     * @param window the game window
+     * @return true if the window has the focus
+     * @throws InterruptedException if the wait was interrupted
+     */
+    private boolean focus(JFrame window) throws InterruptedException {
+        SwingUtilities.invokeLater(() -> {
+            window.toFront();
+            window.requestFocus();
+        });
+        for (int i = 0; i < 40 && !window.isFocused(); i++) {
+            Thread.sleep(50);
+        }
+        return window.isFocused();
+    }
+
+    /**
+     * Prints the latencies and the stalls of the event thread.
+     *
+     * @param report the stream to print to
+     * @param latencies the latency of every press that showed, in nanoseconds
+     * @param counts the number of Hit, Stand and Next Round (or Start) presses
+     * @param lost the number of presses that did not show in time
+     */
+    private void report(PrintStream report, long[] latencies, int[] counts, int lost) {
+        Arrays.sort(latencies);
+        report.printf("Presses: %d hit, %d stand, %d start/next round via %s, %d not shown within %d ms, %d results%n",
+                counts[0], counts[1], counts[2], robot != null ? "robot" : "event queue", lost, TIMEOUT_MILLIS, results);
+        if (latencies.length > 0) {
+            report.printf("Key to repaint: p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                    percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                    latencies[latencies.length - 1] / 1e6);
+        }
+        report.printf("Event thread: %d events, %.1f ms busy, longest %.2f ms, %d stall(s) over %.1f ms (%.1f ms in total)%n",
+                queue.events, queue.busy / 1e6, queue.longest / 1e6, queue.stalls, STALL_NANOS / 1e6, queue.stalled / 1e6);
+    }
+
+    /**
+     * Returns a percentile of sorted latencies in milliseconds.
+     *
+     * @param sorted the latencies in nanoseconds, sorted
+     * @param fraction the percentile as a fraction
+     * @return the latency in milliseconds
+     */
+    static double percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) (fraction * sorted.length))] / 1e6;
+    }
+
+    /**
+     * Runs a task on the Swing event thread and waits for its result.
+     *
+     * @param task the task
+     * @param <T> the type of the result
+     * @return the result of the task
+     * @throws InterruptedException if the wait was interrupted
+     */
+    private static <T> T onEventThread(Callable<T> task) throws InterruptedException {
+        AtomicReference<T> result = new AtomicReference<>();
+        try {
+            SwingUtilities.invokeAndWait(() -> {
+                try {
+                    result.set(task.call());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("The table failed on the event thread", e.getCause());
+        }
+        return result.get();
+    }
+
+    /**
+     * What a key press changes: the phase, the hands or the number of rounds played.
+     *
+     * @param phase the phase of the round
+     * @param playerCards the number of cards in the player's hand
+     * @param dealerCards the number of cards in the dealer's hand
+     * @param playerTotal the value of the player's hand
+     * @param rounds the number of rounds played
+     */
+    private record State(Game.Phase phase, int playerCards, int dealerCards, int playerTotal, long rounds) {
+    }
+
+    /**
+     * The event queue of the run, timing the dispatch of every event.
+     */
+    static class TimingQueue extends EventQueue {
+
+        // Statistics, written on the event thread and read once the presses are over
+        volatile long events, busy, longest, stalls, stalled;
+
+        /**
+         * Dispatches an event and times it.
+         *
+         * @param event the event
+         */
+        @Override
+        protected void dispatchEvent(AWTEvent event) {
+            long start = System.nanoTime();
+            super.dispatchEvent(event);
+            count(System.nanoTime() - start);
+        }
+
+        /**
+         * Counts a dispatched event.
+         *
+         * @param time how long the dispatch took, in nanoseconds
+         */
+        void count(long time) {
+            events++;
+            busy += time;
+            longest = Math.max(longest, time);
+            if (time > STALL_NANOS) {
+                stalls++;
+                stalled += time;
+            }
+        }
+
+        /**
+         * Forgets the events dispatched while the table was opening.
+         */
+        void reset() {
+            events = busy = longest = stalls = stalled = 0;
+        }
+    }
+
+    /**
+     * The repaint manager of the run, noting when the first repaint after a press shows its effect.
+     */
+    private class TimingRepaintManager extends RepaintManager {
+
+        // The state before the pending press, and its latch
+        private volatile State before;
+        private volatile CountDownLatch shown;
+        private volatile long shownAt;
+
+        /**
+         * Waits for the first repaint showing a state other than the given one.
+         *
+         * @param before the state before the press, or null to stop waiting
+         * @return the latch released by that repaint
+         */
+        CountDownLatch expect(State before) {
+            shown = new CountDownLatch(1);
+            this.before = before;
+            return shown;
+        }
+
+        /**
+         * Returns when the last awaited repaint ended.
+         *
+         * @return the time in {@link System#nanoTime()}
+         */
+        long shownAt() {
+            return shownAt;
+        }
+
+        /**
+         * Paints the dirty regions, then releases the pending press if the table changed.
+         */
+        @Override
+        public void paintDirtyRegions() {
+            super.paintDirtyRegions();
+            if (before != null && !state().equals(before)) {
+                shownAt = System.nanoTime();
+                before = null;
+                shown.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package view;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.Serial;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Non-modal banner at the top of the table showing the result of a round and other notices, in place of a modal dialog
+ * the player has to close before going on.
+ * Messages are queued and shown one after another as toasts: each for {@link #DISPLAY_MILLIS}, or only
+ * {@link #HURRIED_MILLIS} while more are waiting, so a quick player is never shown stale results.
+ * The last message stays up as the banner until the next one, or until {@link #clear()} when a new round is dealt.
+ * Used on the Swing event thread only.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+public class ResultBanner extends JLabel {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * How long a message is shown before the next waiting one, in milliseconds.
+     */
+    public static final int DISPLAY_MILLIS = 1500;
+
+    /**
+     * How long a message is shown while more are waiting, in milliseconds.
+     */
+    public static final int HURRIED_MILLIS = 300;
+
+    // Variables
+    private final Queue<String> waiting = new ArrayDeque<>();
+    private final Timer timer = new Timer(DISPLAY_MILLIS, e -> next());
+
+    /**
+     * Constructs an empty banner.
+     */
+    public ResultBanner() {
+        setHorizontalAlignment(SwingConstants.CENTER);
+        setForeground(Color.decode("#18320e"));
+        setBackground(Color.decode("#f2d16b"));
+        setFont(getFont().deriveFont(Font.BOLD, 16f));
+        setBorder(BorderFactory.createEmptyBorder(6, 10, 6, 10));
+        setPreferredSize(new Dimension(110, 34));
+        timer.setRepeats(false);
+    }
+
+    /**
+     * Queues a message, showing it at once if nothing else is being shown.
+     *
+     * @param message the message
+     */
+    public void post(String message) {
+        waiting.add(message);
+        if (!timer.isRunning()) {
+            next();
+        } else {
+            // Cut the current message short, as another one is waiting
+            timer.setInitialDelay(HURRIED_MILLIS);
+            timer.restart();
+        }
+    }
+
+    /**
+     * Hides the banner and drops the messages still waiting.
+     */
+    public void clear() {
+        timer.stop();
+        waiting.clear();
+        setText("");
+        setOpaque(false);
+        repaint();
+    }
+
+    /**
+     * Shows the next waiting message, keeping the current one up if there is none.
+     */
+    private void next() {
+        String message = waiting.poll();
+        if (message == null) {
+            return;
+        }
+        setText(message);
+        setOpaque(true);
+        repaint();
+        timer.setInitialDelay(waiting.isEmpty() ? DISPLAY_MILLIS : HURRIED_MILLIS);
+        timer.restart();
+    }
+}
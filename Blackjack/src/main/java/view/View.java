@@ -2,16 +2,21 @@ package view;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.List;
+import java.util.function.Consumer;
 
 import controller.Game;
+import controller.Scoreboard;
 import lombok.Getter;
-import model.Card;
 import model.Dealer;
 import model.Deck;
 import model.Player;
+import strategy.DealerOdds;
+import strategy.LiveOdds;
 
 /**
  * The View class represents the graphical user interface (GUI) for the Blackjack game.
@@ -23,10 +28,13 @@ import model.Player;
 @Getter
 public class View {
     // Variables
-    private final JFrame window, howToPlayWindow, shortcutsWindow;
+    private final JFrame window;
+    private JFrame howToPlayWindow, shortcutsWindow; // Created on first use, see getHowToPlayWindow() and getShortcutsWindow()
     private final JPanel mainPanel, northPanel, southPanel, centerPanel, southCenterPanel, southWestPanel, playerCardsPanel, dealerCardsPanel, cardsPanel;
     private final JButton startGameButton, hitButton, standButton, nextRoundButton, exitButton, howToPlayButton, shortcutsButton;
-    private final JLabel scoreLabel, dealerHandValue, playerHandValue;
+    private final JLabel scoreLabel, dealerHandValue, playerHandValue, oddsLabel;
+    private final ResultBanner resultBanner;
+    private Consumer<String> resultHandler; // The banner, unless replaced with setResultHandler()
     private ArrayList<JLabel> dealerCardsLabel, playerCardsLabel;   // REQ-001: Replacing all existing tables in the program with collections
                                                                     // REQ-002: Adding a type-safe object collection to the model if it wasn't already
 
@@ -36,19 +44,12 @@ public class View {
      * @param game      the game instance controlling the flow of the game
      * @param player    the player participating in the game
      * @param deck      the deck of cards being used in the game
-     * @param discarded the deck of discarded cards
      */
-    public View(Game game, Player player, Deck deck, Deck discarded) {
+    public View(Game game, Player player, Deck deck) {
         // Create window
         window = new JFrame("Blackjack");
         setWindow();
 
-        // Create How To Play window
-        howToPlayWindow = new JFrame("How to Play");
-
-        // Create Shortcuts window
-        shortcutsWindow = new JFrame("Shortcuts");
-
         // Create main panel
         mainPanel = new JPanel();
         setMainPanels(mainPanel);
@@ -100,10 +101,7 @@ public class View {
 
         // Assigning an action after clicking the Hit button
         hitButton.addActionListener(e -> {
-            player.hit(deck, discarded);
-            updatePlayerScreen(player, game);
-            game.checkPlayerBusts();
-            updateScore(game);
+            game.hit();
         });
 
         // Assigning an action after clicking the Stand button
@@ -138,7 +136,7 @@ public class View {
 
             // Show rules in a message dialog
             JOptionPane.showMessageDialog(
-                    howToPlayWindow,
+                    getHowToPlayWindow(),
                     rules,
                     "Game Rules",
                     JOptionPane.INFORMATION_MESSAGE
@@ -171,6 +169,7 @@ public class View {
             shortcutsTable.setFillsViewportHeight(true);
 
             // Window settings
+            JFrame shortcutsWindow = getShortcutsWindow();
             shortcutsWindow.getContentPane().removeAll(); // Removes previous components
             shortcutsWindow.add(scrollPane);
             shortcutsWindow.setSize(400, 200);
@@ -180,13 +179,33 @@ public class View {
 
 
         // Assigning an action after clicking the Exit button
-        exitButton.addActionListener(e -> System.exit(0));
+        exitButton.addActionListener(e -> game.exit());
+
+        // Closing the window exits the same way, so the game is saved
+        window.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                game.exit();
+            }
+        });
+
+        // Create odds overlay, filled in during the player's turn
+        oddsLabel = new JLabel();
+        oddsLabel.setForeground(Color.WHITE);
+        oddsLabel.setFont(oddsLabel.getFont().deriveFont(Font.PLAIN, 11f));
+        oddsLabel.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 10));
+        southPanel.add(oddsLabel, BorderLayout.EAST);
 
         // Create Score label
         scoreLabel = new JLabel();
         setScoreLabel();
         northPanel.add(scoreLabel);
 
+        // Create result banner, shown above the table instead of a dialog
+        resultBanner = new ResultBanner();
+        northPanel.add(resultBanner, BorderLayout.SOUTH);
+        resultHandler = resultBanner::post;
+
         // Create panel for cards
         cardsPanel = new JPanel();
         cardsPanel.setLayout(new BoxLayout(cardsPanel, BoxLayout.Y_AXIS));
@@ -212,11 +231,35 @@ public class View {
         window.setVisible(true);
     }
 
+    /**
+     * Returns the How To Play window, creating it on first use.
+     *
+     * @return the How To Play window
+     */
+    public JFrame getHowToPlayWindow() {
+        if (howToPlayWindow == null) {
+            howToPlayWindow = new JFrame("How to Play");
+        }
+        return howToPlayWindow;
+    }
+
+    /**
+     * Returns the Shortcuts window, creating it on first use.
+     *
+     * @return the Shortcuts window
+     */
+    public JFrame getShortcutsWindow() {
+        if (shortcutsWindow == null) {
+            shortcutsWindow = new JFrame("Shortcuts");
+        }
+        return shortcutsWindow;
+    }
+
     /**
      * Sets the main window properties.
      */
     public void setWindow() {
-        window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        window.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
         window.setSize(600, 600);
     }
 
@@ -329,8 +372,8 @@ public class View {
         playerCardsLabel = new ArrayList<>();
 
         for (int i = 0; i < 11; i++) {
-            JLabel dealerCard = new JLabel(new ImageIcon(new ImageIcon(Card.IMAGE_DIR + "CardDown.png").getImage().getScaledInstance(Card.CARD_WIDTH, Card.CARD_HEIGHT, Image.SCALE_SMOOTH)));
-            JLabel playerCard = new JLabel(new ImageIcon(new ImageIcon(Card.IMAGE_DIR + "CardDown.png").getImage().getScaledInstance(Card.CARD_WIDTH, Card.CARD_HEIGHT, Image.SCALE_SMOOTH)));
+            JLabel dealerCard = new JLabel(CardImages.getCardDown());
+            JLabel playerCard = new JLabel(CardImages.getCardDown());
 
             dealerCardsLabel.add(dealerCard);
             playerCardsLabel.add(playerCard);
@@ -359,10 +402,7 @@ public class View {
         }
 
         for(int i = 0; i < player.getHand().getHandSize(); i++){
-            String rank = player.getHand().getCard(i).rank().toString();
-            String suit = player.getHand().getCard(i).suit().toString();
-            String filename = rank + suit + ".png";
-            playerCardsLabel.get(i).setIcon(new ImageIcon(new ImageIcon(Card.IMAGE_DIR+filename).getImage().getScaledInstance(Card.CARD_WIDTH, Card.CARD_HEIGHT, Image.SCALE_SMOOTH)));
+            playerCardsLabel.get(i).setIcon(CardImages.get(player.getHand().getCard(i)));
             playerCardsLabel.get(i).setVisible(true);
         }
     }
@@ -380,14 +420,11 @@ public class View {
         }
 
         for(int i = 0; i < dealer.getHand().getHandSize(); i++){
-            String rank = dealer.getHand().getCard(i).rank().toString();
-            String suit = dealer.getHand().getCard(i).suit().toString();
-            String filename = rank + suit + ".png";
-            dealerCardsLabel.get(i).setIcon(new ImageIcon(new ImageIcon(Card.IMAGE_DIR+filename).getImage().getScaledInstance(Card.CARD_WIDTH, Card.CARD_HEIGHT, Image.SCALE_SMOOTH)));
+            dealerCardsLabel.get(i).setIcon(CardImages.get(dealer.getHand().getCard(i)));
             dealerCardsLabel.get(i).setVisible(true);
         }
         // Hide second card
-        dealerCardsLabel.get(1).setIcon(new ImageIcon(new ImageIcon(Card.IMAGE_DIR+"CardDown.png").getImage().getScaledInstance(Card.CARD_WIDTH, Card.CARD_HEIGHT, Image.SCALE_DEFAULT)));
+        dealerCardsLabel.get(1).setIcon(CardImages.getCardDown());
     }
 
     /**
@@ -403,10 +440,7 @@ public class View {
         }
 
         for(int i = 0; i < dealer.getHand().getHandSize(); i++){
-            String rank = dealer.getHand().getCard(i).rank().toString();
-            String suit = dealer.getHand().getCard(i).suit().toString();
-            String filename = rank + suit + ".png";
-            dealerCardsLabel.get(i).setIcon(new ImageIcon(new ImageIcon(Card.IMAGE_DIR+filename).getImage().getScaledInstance(Card.CARD_WIDTH, Card.CARD_HEIGHT, Image.SCALE_SMOOTH)));
+            dealerCardsLabel.get(i).setIcon(CardImages.get(dealer.getHand().getCard(i)));
             dealerCardsLabel.get(i).setVisible(true);
         }
     }
@@ -420,7 +454,7 @@ public class View {
     public void updatePlayerScreen(Player player, Game game) {
         playerHandValue.setText("Player's hand value: " + player.getHand().calculateValue());
         printPlayerHand(player);
-        scoreLabel.setText("Wins: " + game.getWins() + " Losses: " + game.getLosses() + " Pushes: " + game.getPushes());
+        updateScore(game);
     }
 
     /**
@@ -432,16 +466,18 @@ public class View {
     public void updateDealerScreen(Dealer dealer, Game game) {
         dealerHandValue.setText("Dealer's hand value: " + dealer.getHand().calculateValue());
         printDealerHand(dealer);
-        scoreLabel.setText("Wins: " + game.getWins() + " Losses: " + game.getLosses() + " Pushes: " + game.getPushes());
+        updateScore(game);
     }
 
     /**
-     * Updates the score display with the current number of wins, losses, and pushes.
+     * Updates the score display with the current number of wins, losses, and pushes,
+     * read in one consistent snapshot of the game's scoreboard.
      *
      * @param game the game instance providing the updated scores
      */
     public void updateScore(Game game) {
-        scoreLabel.setText("Wins: " + game.getWins() + " Losses: " + game.getLosses() + " Pushes: " + game.getPushes());
+        Scoreboard.Snapshot score = game.getScoreboard().snapshot();
+        scoreLabel.setText("Wins: " + score.wins() + " Losses: " + score.losses() + " Pushes: " + score.pushes());
     }
 
     /**
@@ -466,12 +502,62 @@ public class View {
     }
 
     /**
-     * Show window with result of round
+     * Shows the live odds of the player's decision.
+     *
+     * @param odds the odds computed for the cards not seen yet
+     */
+    public void showOdds(LiveOdds.Odds odds) {
+        double[] dealer = odds.dealer();
+        StringBuilder text = new StringBuilder("<html>");
+        text.append(String.format("Bust on hit: %.1f%%<br>", 100 * odds.bust()));
+        text.append(String.format("EV hit / stand: %+.3f / %+.3f<br>", odds.hit(), odds.stand()));
+        text.append("Dealer 17-21:");
+        for (int total = 17; total <= 21; total++) {
+            text.append(String.format(" %.0f", 100 * dealer[total - 17]));
+        }
+        text.append(String.format("%%<br>Dealer bust: %.1f%%</html>", 100 * dealer[DealerOdds.BUST]));
+        oddsLabel.setText(text.toString());
+    }
+
+    /**
+     * Clears the live odds once the player's decisions are over.
+     */
+    public void clearOdds() {
+        oddsLabel.setText("");
+    }
+
+    /**
+     * Show the result of round in the banner above the table, without waiting for the player.
      *
      * @param result the message about who win
      */
     public void showResultWindow(String result) {
-        JOptionPane.showMessageDialog(null, result);
+        resultHandler.accept(result);
+    }
+
+    /**
+     * Shows a notice in the banner above the table, after the messages already waiting.
+     *
+     * @param notice the notice
+     */
+    public void showNotice(String notice) {
+        resultBanner.post(notice);
+    }
+
+    /**
+     * Hides the result of the previous round, when the next one is dealt.
+     */
+    public void clearResult() {
+        resultBanner.clear();
+    }
+
+    /**
+     * Replaces the result banner, e.g. so an automated run counts the results instead of showing them.
+     *
+     * @param resultHandler receives the result message of every round on the Swing event thread
+     */
+    public void setResultHandler(Consumer<String> resultHandler) {
+        this.resultHandler = resultHandler;
     }
 
 }
@@ -0,0 +1,400 @@
+package controller;
+
+import model.Card;
+import model.Dealer;
+import model.Deck;
+import model.Hand;
+import model.Outcome;
+import model.Player;
+import model.Rules;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Deterministic regression suite of round outcomes.
+ * A corpus of seeded shoes is replayed round by round through the game's own {@link RoundEngine}: the deal with the
+ * shoe swap at the cut card, the player's hits (reloading the shoe from the discard pile when it runs out) and bust,
+ * the dealer's draws and the settlement and payout. The player stands on a total that cycles from 12 to 18 from round
+ * to round, and hits soft hands below 18, so every outcome comes up.
+ * <p>
+ * Every round (the cards of both hands, their values and the outcome) is fed into a SHA-256 digest of its block of
+ * {@link #BLOCK} rounds, and the digest, the outcome counts and the net result of every block are compared with the
+ * corpus {@code replay/outcomes.corpus}. An optimized {@link Hand}, {@link Deck} or engine must reproduce it exactly
+ * before it ships; {@code -Dreplay.record=true} rewrites the corpus in {@code src/test/resources} after an intended
+ * change of behavior. The cases of the corpus are replayed in parallel, one per worker thread at a time.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+class ReplayRegressionTest {
+
+    /**
+     * The number of rounds of a block of the corpus.
+     */
+    static final int BLOCK = 10_000;
+
+    /**
+     * The rules of the recorded cases, as comma-separated rule flags.
+     */
+    static final List<String> VARIANTS = List.of(
+            "--decks=1",
+            "--decks=2,--h17",
+            "--decks=6,--penetration=0.75",
+            "--decks=6,--h17,--payout=1.2,--penetration=0.8",
+            "--decks=8,--penetration=0.9",
+            "--decks=1,--h17,--payout=1.2,--penetration=0.5");
+
+    /**
+     * The seeds of the recorded cases, each played under every variant.
+     */
+    static final long[] SEEDS = {1, 2, 3, 4};
+
+    /**
+     * The number of rounds of a recorded case.
+     */
+    static final int ROUNDS = 200_000;
+
+    // The corpus on the test classpath, and the file it is recorded to
+    private static final String CORPUS = "/replay/outcomes.corpus";
+    private static final Path SOURCE = Path.of("src/test/resources/replay/outcomes.corpus");
+    // Outcomes counted per block
+    private static final Outcome[] OUTCOMES = Outcome.values();
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+    @Test
+    void replayMatchesCorpus() throws IOException, InterruptedException {
+        if (Boolean.getBoolean("replay.record")) {
+            record();
+            return;
+        }
+        // Group the blocks of the corpus by case, in their order
+        Map<Case, List<Block>> expected = new LinkedHashMap<>();
+        for (String line : readCorpus()) {
+            if (!line.isBlank() && !line.startsWith("#")) {
+                String[] fields = line.trim().split("\\s+");
+                Case scenario = new Case(fields[0], Long.parseLong(fields[1]), 0);
+                expected.computeIfAbsent(scenario, key -> new ArrayList<>()).add(Block.parse(fields));
+            }
+        }
+        assertFalse(expected.isEmpty(), "The corpus " + CORPUS + " is empty");
+        List<Case> cases = new ArrayList<>();
+        expected.forEach((scenario, blocks) ->
+                cases.add(new Case(scenario.rules(), scenario.seed(), blocks.size() * BLOCK)));
+
+        long start = System.nanoTime();
+        List<List<Block>> actual = replay(cases);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        StringBuilder failed = new StringBuilder();
+        long rounds = 0;
+        for (int i = 0; i < cases.size(); i++) {
+            Case scenario = cases.get(i);
+            List<Block> blocks = expected.get(new Case(scenario.rules(), scenario.seed(), 0));
+            rounds += scenario.rounds();
+            for (int block = 0; block < blocks.size(); block++) {
+                if (!blocks.get(block).equals(actual.get(i).get(block))) {
+                    // Only the first difference of a case, as the later blocks follow from it
+                    failed.append(String.format("%n%s seed %d, rounds %,d-%,d:%n  expected %s%n  actual   %s",
+                            scenario.rules(), scenario.seed(), block * BLOCK + 1, (block + 1) * BLOCK,
+                            blocks.get(block).format(), actual.get(i).get(block).format()));
+                    break;
+                }
+            }
+        }
+        System.out.printf("Replay: %,d rounds of %d cases on %d thread(s) in %.1f s (%,.0f rounds/s)%n", rounds,
+                cases.size(), THREADS, seconds, rounds / seconds);
+        assertTrue(failed.isEmpty(), "Outcomes differ from the corpus:" + failed);
+    }
+
+    /**
+     * Plays every case of {@link #VARIANTS} and {@link #SEEDS} and writes the corpus to {@code src/test/resources}.
+     *
+     * @throws IOException if the corpus cannot be written
+     * @throws InterruptedException if the run was interrupted
+     */
+    private static void record() throws IOException, InterruptedException {
+        List<Case> cases = new ArrayList<>();
+        for (String rules : VARIANTS) {
+            for (long seed : SEEDS) {
+                cases.add(new Case(rules, seed, ROUNDS));
+            }
+        }
+        List<List<Block>> blocks = replay(cases);
+
+        List<String> lines = new ArrayList<>();
+        lines.add("# Replay regression corpus, see controller.ReplayRegressionTest; rewrite with -Dreplay.record=true");
+        lines.add("# rules seed block digest " + String.join(" ", names()) + " net");
+        for (int i = 0; i < cases.size(); i++) {
+            for (Block block : blocks.get(i)) {
+                lines.add(cases.get(i).rules() + " " + cases.get(i).seed() + " " + block.format());
+            }
+        }
+        Files.write(SOURCE, lines);
+        System.out.printf("Recorded %,d rounds of %d cases to %s%n", (long) cases.size() * ROUNDS, cases.size(), SOURCE);
+    }
+
+    /**
+     * Reads the lines of the corpus from the test classpath.
+     *
+     * @return the lines
+     * @throws IOException if the corpus cannot be read
+     */
+    private static List<String> readCorpus() throws IOException {
+        try (InputStream in = ReplayRegressionTest.class.getResourceAsStream(CORPUS)) {
+            assertNotNull(in, "The corpus " + CORPUS + " is not on the test classpath");
+            return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)).lines().toList();
+        }
+    }
+
+    /**
+     * Replays cases on worker threads.
+     *
+     * @param cases the cases
+     * @return the blocks of every case, in the order of the cases
+     * @throws InterruptedException if the replay was interrupted
+     */
+    private static List<List<Block>> replay(List<Case> cases) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<List<Block>>> futures = new ArrayList<>();
+            for (Case scenario : cases) {
+                futures.add(workers.submit(() -> new Replay(scenario).play()));
+            }
+            List<List<Block>> blocks = new ArrayList<>();
+            for (Future<List<Block>> future : futures) {
+                blocks.add(future.get());
+            }
+            return blocks;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A replay failed: " + e.getCause(), e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the names of the outcomes, as in the header of the corpus.
+     *
+     * @return the lower-case names
+     */
+    private static List<String> names() {
+        List<String> names = new ArrayList<>();
+        for (Outcome outcome : OUTCOMES) {
+            names.add(outcome.name().toLowerCase());
+        }
+        return names;
+    }
+
+    /**
+     * One table replaying a case through a round engine.
+     */
+    private static class Replay {
+
+        // Variables
+        private final Case scenario;
+        private final RoundEngine engine;
+        private final MessageDigest digest;
+        // The records of the rounds of the current block, digested at its end
+        private byte[] records = new byte[BLOCK * 16];
+        private int length;
+
+        /**
+         * Sets up the table of a case with the seeded shoe of its first round, as a new game does.
+         *
+         * @param scenario the case
+         * @throws IllegalArgumentException if the rules of the case cannot be replayed
+         */
+        Replay(Case scenario) {
+            this.scenario = scenario;
+            Rules rules = Rules.parse(scenario.rules().split(","));
+            if (rules.certifiedShuffle()) {
+                throw new IllegalArgumentException("Certified shuffles cannot be replayed: " + scenario.rules());
+            }
+            Deck deck = new Deck(rules.decks());
+            deck.restore(deck.cards(), scenario.seed(), 0);
+            deck.shuffle();
+            engine = new RoundEngine(rules, deck, new Player("replay"), new Dealer(),
+                    RoundEngine.ShuffleListener.NONE);
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+
+        /**
+         * Plays the rounds of the case.
+         *
+         * @return the blocks of the case
+         * @throws Deck.EmptyDeckException never, as the shoe holds at least four cards at the start of a round
+         */
+        List<Block> play() throws Deck.EmptyDeckException {
+            List<Block> blocks = new ArrayList<>();
+            try (engine) {
+                engine.startShoes();
+                long[] counts = new long[OUTCOMES.length];
+                double net = 0;
+                for (int round = 0; round < scenario.rounds(); round++) {
+                    Outcome outcome = playRound(12 + round % 7);
+                    counts[outcome.ordinal()]++;
+                    net += engine.payout(outcome);
+                    if ((round + 1) % BLOCK == 0) {
+                        String hash = HexFormat.of().formatHex(digest.digest(Arrays.copyOf(records, length)));
+                        String result = String.format(Locale.ROOT, "%.2f", net);
+                        blocks.add(new Block(blocks.size(), hash, counts.clone(), result));
+                        Arrays.fill(counts, 0);
+                        net = 0;
+                        length = 0;
+                    }
+                }
+            }
+            return blocks;
+        }
+
+        /**
+         * Plays one round with the fixed policy of the replay.
+         *
+         * @param stand the hard total the player stands on
+         * @return the outcome of the round
+         * @throws Deck.EmptyDeckException never, as the shoe holds at least four cards at the start of a round
+         */
+        private Outcome playRound(int stand) throws Deck.EmptyDeckException {
+            Hand playerHand = engine.getPlayer().getHand(), dealerHand = engine.getDealer().getHand();
+            engine.deal();
+            while (playerHand.calculateValue() < (playerHand.isSoft() ? Math.max(stand, 18) : stand)) {
+                engine.hit();
+            }
+            Outcome outcome;
+            if (engine.playerBusts()) {
+                outcome = Outcome.PLAYER_BUST;
+            } else {
+                while (engine.dealerDraws()) {
+                    engine.dealerHit();
+                }
+                outcome = engine.settle();
+            }
+            recordRound(playerHand, dealerHand, outcome);
+            return outcome;
+        }
+
+        /**
+         * Appends a round to the records of the block: the cards and the value of both hands, and the outcome.
+         *
+         * @param playerHand the player's hand
+         * @param dealerHand the dealer's hand
+         * @param outcome the outcome
+         */
+        private void recordRound(Hand playerHand, Hand dealerHand, Outcome outcome) {
+            int size = playerHand.getHandSize() + dealerHand.getHandSize() + 5;
+            if (length + size > records.length) {
+                records = Arrays.copyOf(records, Math.max(2 * records.length, length + size));
+            }
+            for (Hand hand : List.of(playerHand, dealerHand)) {
+                records[length++] = (byte) hand.getHandSize();
+                for (Card card : hand.cards()) {
+                    records[length++] = (byte) card.index();
+                }
+                records[length++] = (byte) hand.calculateValue();
+            }
+            records[length++] = (byte) outcome.ordinal();
+        }
+    }
+
+    /**
+     * A case of the corpus.
+     *
+     * @param rules the rules, as comma-separated rule flags
+     * @param seed the seed of the shoe
+     * @param rounds the number of rounds, a multiple of {@link #BLOCK}
+     */
+    private record Case(String rules, long seed, int rounds) {
+    }
+
+    /**
+     * The result of a block of rounds.
+     *
+     * @param index the number of the block in its case
+     * @param digest the SHA-256 digest of the rounds, in hexadecimal
+     * @param counts the number of rounds of every outcome, in the order of {@link Outcome}
+     * @param net the net result of the block in units, with two decimals
+     */
+    private record Block(int index, String digest, long[] counts, String net) {
+
+        /**
+         * Reads a block from the fields of a corpus line, after the rules and the seed.
+         *
+         * @param fields the fields of the line
+         * @return the block
+         * @throws IllegalArgumentException if the line is malformed
+         */
+        static Block parse(String[] fields) {
+            if (fields.length != 5 + OUTCOMES.length) {
+                throw new IllegalArgumentException("Malformed corpus line: " + String.join(" ", fields));
+            }
+            long[] counts = new long[OUTCOMES.length];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = Long.parseLong(fields[4 + i]);
+            }
+            return new Block(Integer.parseInt(fields[2]), fields[3], counts, fields[fields.length - 1]);
+        }
+
+        /**
+         * Formats the block as in the corpus, without the rules and the seed.
+         *
+         * @return the block, its digest, the counts and the net result separated by spaces
+         */
+        String format() {
+            StringBuilder line = new StringBuilder().append(index).append(' ').append(digest);
+            for (long count : counts) {
+                line.append(' ').append(count);
+            }
+            return line.append(' ').append(net).toString();
+        }
+
+        /**
+         * Compares two blocks by value, including their counts.
+         *
+         * @param other the other block
+         * @return true if every field is equal
+         */
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Block block && index == block.index && digest.equals(block.digest)
+                    && Arrays.equals(counts, block.counts) && net.equals(block.net);
+        }
+
+        /**
+         * Returns the hash code of the digest, consistent with {@link #equals(Object)}.
+         *
+         * @return the hash code
+         */
+        @Override
+        public int hashCode() {
+            return digest.hashCode();
+        }
+    }
+}
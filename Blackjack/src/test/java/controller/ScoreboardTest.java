@@ -0,0 +1,40 @@
+package controller;
+
+import model.Outcome;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests of the {@link Scoreboard} units, which must keep payouts that are not multiples of half a unit.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+class ScoreboardTest {
+
+    @Test
+    void sixToFiveNaturalIsBookedInFull() {
+        Scoreboard scoreboard = new Scoreboard();
+        scoreboard.record(Outcome.BLACKJACK, 10, 1.2);
+        Scoreboard.Snapshot score = scoreboard.snapshot();
+        assertEquals(1.2, score.units(), 0);
+        assertEquals(1, score.wins());
+        assertEquals(1, score.count(10, Outcome.BLACKJACK));
+    }
+
+    @Test
+    void unitsSurviveAddingASnapshot() {
+        Scoreboard saved = new Scoreboard();
+        for (int round = 0; round < 3; round++) {
+            saved.record(Outcome.BLACKJACK, 11, 1.2);
+        }
+        saved.record(Outcome.DEALER_HIGHER, 7, -1);
+
+        Scoreboard resumed = new Scoreboard();
+        resumed.add(saved.snapshot());
+        resumed.record(Outcome.BLACKJACK, 2, 1.2);
+        assertEquals(3.8, resumed.snapshot().units(), 0);
+        assertEquals(5, resumed.snapshot().rounds());
+    }
+}
@@ -0,0 +1,67 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests that packed {@link HandTotal}s follow the Ace rules of {@link Hand#calculateValue()} for every sequence of
+ * cards a hand can take before it busts.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+class HandTotalTest {
+
+    /**
+     * One rank of every value, Ace to Ten.
+     */
+    private static final Rank[] VALUES = Arrays.copyOf(Rank.values(), 10);
+
+    @Test
+    void softTwentyOneTakingAnAceTurnsHard() {
+        int total = HandTotal.add(HandTotal.of(10), 11);
+        assertEquals(21 | HandTotal.SOFT, total);
+        assertEquals(12, HandTotal.add(total, 11));
+    }
+
+    @Test
+    void packedTotalsMatchTheHand() {
+        assertEquals(0, check(new ArrayList<>()));
+    }
+
+    /**
+     * Compares a hand with its packed total, then adds every value of card to it, up to eight cards or a bust.
+     *
+     * @param cards the cards of the hand
+     * @return the number of hands whose packed total differs
+     */
+    private static int check(List<Card> cards) {
+        Hand hand = new Hand();
+        int aces = 0;
+        for (Card card : cards) {
+            hand.addCard(card);
+            aces += card.getValue() == 11 ? 1 : 0;
+        }
+        // The hand is soft while an Ace is left counted as 11 once the total is brought under 22
+        int hard = hand.calculateValue();
+        int counted = cards.stream().mapToInt(Card::getValue).sum();
+        boolean soft = aces > (counted - hard) / 10;
+
+        int total = hand.packedTotal();
+        int differ = HandTotal.value(total) != hard || HandTotal.isSoft(total) != soft || hand.isSoft() != soft ? 1 : 0;
+        if (cards.size() == 8 || hard > 21) {
+            return differ;
+        }
+        for (Rank rank : VALUES) {
+            cards.add(new Card(Suit.SPADE, rank));
+            differ += check(cards);
+            cards.remove(cards.size() - 1);
+        }
+        return differ;
+    }
+}
@@ -0,0 +1,40 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of reading {@link Rules} from command-line flags.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+class RulesTest {
+
+    @Test
+    void switchesTakeTrueOrFalse() {
+        Rules rules = Rules.parse(new String[] {"--double", "--surrender=FALSE", "--certified=true"});
+        assertTrue(rules.doubleAllowed());
+        assertFalse(rules.surrenderAllowed());
+        assertTrue(rules.certifiedShuffle());
+    }
+
+    @Test
+    void otherSwitchValuesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Rules.parse(new String[] {"--double=yes"}));
+        assertThrows(IllegalArgumentException.class, () -> Rules.parse(new String[] {"--surrender=1"}));
+    }
+
+    @Test
+    void unknownOptionsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Rules.parse(new String[] {"--surender"}));
+        assertThrows(IllegalArgumentException.class, () -> Rules.parse(new String[] {"--split"}));
+        assertEquals(6, Rules.parse(new String[] {"--decks=6", "--seed=7"}, Set.of("seed")).decks());
+    }
+}
@@ -0,0 +1,574 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Statistical tests of both shuffles of the game: {@link Deck#shuffle()} and the shoes of a {@link ShoeSupplier},
+ * in the seeded and the certified mode, so any faster shuffle has to pass them before it ships.
+ * <p>
+ * Worker threads shuffle decks millions of times, every shuffle starting from the ordered deck, and stream what they see
+ * into fixed-size histograms of their own, which are merged once all of them are done:
+ * <ul>
+ *     <li>the position of every card of a 52-card deck;</li>
+ *     <li>the number of cards still directly followed by the card that followed them in the ordered deck;</li>
+ *     <li>the number of rising sequences, which a riffle shuffle repeated too few times leaves too low;</li>
+ *     <li>the rank at every position of a six-deck shoe dealt before the cut card (the deck penetration);</li>
+ *     <li>the rank of the first four cards of a round, dealt as the game deals them: the dealer's two, then the player's.</li>
+ * </ul>
+ * Each histogram is compared with its exact distribution under a uniform shuffle by a chi-square test, and a test fails
+ * when the statistic lies more than {@link #Z_LIMIT} standard deviations from its mean: too high for a biased shuffle,
+ * too low for shuffles more even than independent ones would be, i.e. correlated from one shuffle to the next.
+ * A supplier is tested on the shoes it shuffles one after another, with consecutive shuffle numbers.
+ * <p>
+ * A run stops after {@code -Dshuffle.shuffles} shuffles or when its time budget ({@code -Dshuffle.budget}, in seconds)
+ * is spent, whichever comes first.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+class ShuffleQualityTest {
+
+    /**
+     * The fewest shuffles the tests are run on; a run stopped by its budget earlier fails.
+     */
+    static final long MIN_SHUFFLES = 100_000;
+
+    /**
+     * The largest standard score of a chi-square statistic that passes either way (6 false alarms in 10 million).
+     */
+    static final double Z_LIMIT = 5;
+
+    // Shuffles of a run and its time budget in seconds, set by the build
+    private static final long SHUFFLES = Long.getLong("shuffle.shuffles", 2_000_000);
+    private static final int BUDGET = Integer.getInteger("shuffle.budget", 60);
+    // Seeds of the shuffles, fixed so a build repeats the same shuffles; the suppliers get another one, as they draw
+    // the same swaps as a deck of the same seed and shuffle number
+    private static final long SEED = 1, SUPPLIER_SEED = 2;
+    // Shuffles claimed by a worker at a time
+    private static final int BLOCK = 1024;
+    // Cards of one deck and ranks
+    private static final int CARDS = 52, RANKS = Rank.values().length;
+    // Cards of the first round: the dealer's two, then the player's two
+    private static final int ROUND = 4;
+    // Bins of a goodness-of-fit test expecting fewer counts are pooled
+    private static final double MIN_EXPECTED = 5;
+    // Shuffle numbers apart between the suppliers of two workers
+    private static final long SUPPLIER_STRIDE = 1L << 40;
+
+    @Test
+    void seededDeckShuffle() throws InterruptedException {
+        Rules rules = Rules.parse(new String[] {"--decks=6"});
+        assertUniform(rules, run(rules, Runtime.getRuntime().availableProcessors(), worker -> new DeckSource(rules)));
+    }
+
+    @Test
+    void certifiedDeckShuffle() throws InterruptedException {
+        Rules rules = Rules.parse(new String[] {"--decks=6", "--certified"});
+        assertUniform(rules, run(rules, Runtime.getRuntime().availableProcessors(), worker -> new DeckSource(rules)));
+    }
+
+    @Test
+    void seededShoeSupplier() throws InterruptedException {
+        Rules rules = Rules.parse(new String[] {"--decks=6"});
+        assertUniform(rules, run(rules, supplierWorkers(), worker -> new SupplierSource(rules, worker)));
+    }
+
+    @Test
+    void certifiedShoeSupplier() throws InterruptedException {
+        Rules rules = Rules.parse(new String[] {"--decks=6", "--certified"});
+        assertUniform(rules, run(rules, supplierWorkers(), worker -> new SupplierSource(rules, worker)));
+    }
+
+    @Test
+    void exactDistributionsOfThreeCards() {
+        // Of the 6 orders of 3 cards, 3 keep no pair, 2 keep one and the ordered one keeps both
+        assertArrayEquals(new double[] {3 / 6.0, 2 / 6.0, 1 / 6.0}, successions(3), 1e-12);
+        // Eulerian numbers 1, 4, 1
+        assertArrayEquals(new double[] {1 / 6.0, 4 / 6.0, 1 / 6.0}, risingSequences(3), 1e-12);
+    }
+
+    /**
+     * Returns the number of workers of a supplier test: the suppliers shuffle on threads of their own,
+     * two for every worker.
+     *
+     * @return the number of workers
+     */
+    private static int supplierWorkers() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() / 3);
+    }
+
+    /**
+     * Shuffles on every worker thread until the shuffles or the time budget run out, and merges their histograms.
+     *
+     * @param rules the rules of the shoe of the penetration and first-round tests
+     * @param threads the number of worker threads
+     * @param sources the source of the shuffles of every worker, by the number of the worker
+     * @return the merged histograms
+     * @throws InterruptedException if the run was interrupted
+     */
+    private static Histograms run(Rules rules, int threads, IntFunction<Source> sources) throws InterruptedException {
+        long deadline = System.nanoTime() + BUDGET * 1_000_000_000L;
+        AtomicLong claimed = new AtomicLong();
+        List<Worker> workers = new ArrayList<>();
+        List<Thread> running = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Worker worker = new Worker(rules, sources.apply(i), claimed, deadline);
+            workers.add(worker);
+            running.add(new Thread(worker, "shuffle-quality-" + i));
+        }
+        long start = System.nanoTime();
+        running.forEach(Thread::start);
+        for (Thread thread : running) {
+            thread.join();
+        }
+
+        Histograms total = new Histograms(workers.getFirst().histograms.dealt);
+        for (Worker worker : workers) {
+            if (worker.failure != null) {
+                throw new IllegalStateException("A shuffle worker failed", worker.failure);
+            }
+            total.add(worker.histograms);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Shuffle: %s, %,d shuffles on %d thread(s) in %.1f s (%,.0f shuffles/s)%n",
+                rules.certifiedShuffle() ? "certified" : "seeded", total.shuffles, threads, seconds,
+                total.shuffles / seconds);
+        return total;
+    }
+
+    /**
+     * Tests merged histograms against the distributions of a uniform shuffle, and fails with every test that did not
+     * pass.
+     *
+     * @param rules the rules of the shoe of the penetration and first-round tests
+     * @param total the merged histograms
+     */
+    private static void assertUniform(Rules rules, Histograms total) {
+        assertTrue(total.shuffles >= MIN_SHUFFLES, String.format("Only %,d shuffles within the budget of %d s, "
+                + "at least %,d are needed", total.shuffles, BUDGET, MIN_SHUFFLES));
+        List<Result> results = List.of(
+                positions(total),
+                goodnessOfFit("Adjacent pairs kept", total.successions, successions(CARDS), total.shuffles),
+                goodnessOfFit("Rising sequences", total.risingSequences, risingSequences(CARDS), total.shuffles),
+                ranks("Penetration (" + total.dealt + " of " + 52 * rules.decks() + " cards)", total.penetration,
+                        total.dealt, total.shuffles),
+                ranks("First round (dealer, dealer, player, player)", total.firstRound, ROUND, total.shuffles));
+        StringBuilder failed = new StringBuilder();
+        for (Result result : results) {
+            String line = String.format("%-4s %-48s chi2 %12.1f, %6d df, z %6.2f", result.passed() ? "ok" : "FAIL",
+                    result.name(), result.statistic(), result.df(), result.z());
+            System.out.println(line);
+            if (!result.passed()) {
+                failed.append(System.lineSeparator()).append(line);
+            }
+        }
+        assertTrue(failed.isEmpty(), "Shuffles not uniform:" + failed);
+    }
+
+    /**
+     * Tests the positions of the cards of a deck: every card should land on every position equally often.
+     * The rows and the columns of the table both sum to the number of shuffles.
+     *
+     * @param histograms the merged histograms
+     * @return the result
+     */
+    private static Result positions(Histograms histograms) {
+        double expected = histograms.shuffles / (double) CARDS;
+        double statistic = 0;
+        for (long count : histograms.positions) {
+            statistic += (count - expected) * (count - expected) / expected;
+        }
+        return Result.of("Card positions", statistic, (CARDS - 1) * (CARDS - 1));
+    }
+
+    /**
+     * Tests the ranks of a run of dealt positions: every rank should come up at every position one time in thirteen.
+     *
+     * @param name the name of the test
+     * @param counts the counts, position by position and rank by rank
+     * @param positions the number of positions
+     * @param shuffles the number of shuffles
+     * @return the result
+     */
+    private static Result ranks(String name, long[] counts, int positions, long shuffles) {
+        double expected = shuffles / (double) RANKS;
+        double statistic = 0;
+        for (long count : counts) {
+            statistic += (count - expected) * (count - expected) / expected;
+        }
+        return Result.of(name, statistic, positions * (RANKS - 1));
+    }
+
+    /**
+     * Tests a histogram against a distribution, pooling the bins expected to count too little into one.
+     *
+     * @param name the name of the test
+     * @param counts the histogram
+     * @param probabilities the probability of every bin
+     * @param shuffles the number of shuffles
+     * @return the result
+     */
+    private static Result goodnessOfFit(String name, long[] counts, double[] probabilities, long shuffles) {
+        double statistic = 0, pooledExpected = 0;
+        long pooledCount = 0;
+        int bins = 0;
+        for (int i = 0; i < counts.length; i++) {
+            double expected = probabilities[i] * shuffles;
+            if (expected < MIN_EXPECTED) {
+                pooledExpected += expected;
+                pooledCount += counts[i];
+            } else {
+                statistic += (counts[i] - expected) * (counts[i] - expected) / expected;
+                bins++;
+            }
+        }
+        if (pooledExpected > 0) {
+            statistic += (pooledCount - pooledExpected) * (pooledCount - pooledExpected) / pooledExpected;
+            bins++;
+        }
+        return Result.of(name, statistic, bins - 1);
+    }
+
+    /**
+     * Returns the distribution of the number of successions of a uniformly shuffled deck: cards directly followed by
+     * the card following them in the ordered deck. With r(m) the number of permutations of m cards without a succession
+     * divided by m!, which satisfies r(m) = r(m - 1) + r(m - 2) / m, exactly k successions happen with probability
+     * r(n - 1 - k) / (n k!).
+     *
+     * @param cards the number of cards
+     * @return the probability of 0 to cards - 1 successions
+     */
+    static double[] successions(int cards) {
+        double[] none = new double[cards];
+        none[0] = 1;
+        if (cards > 1) {
+            none[1] = 1;
+        }
+        for (int m = 2; m < cards; m++) {
+            none[m] = none[m - 1] + none[m - 2] / m;
+        }
+        double[] probabilities = new double[cards];
+        double factorial = 1;
+        for (int k = 0; k < cards; k++) {
+            factorial *= Math.max(1, k);
+            probabilities[k] = none[cards - 1 - k] / (cards * factorial);
+        }
+        return probabilities;
+    }
+
+    /**
+     * Returns the distribution of the number of rising sequences of a uniformly shuffled deck, the Eulerian numbers
+     * divided by n!, built up one card at a time: p(n, k) = k/n p(n - 1, k) + (n - k + 1)/n p(n - 1, k - 1).
+     *
+     * @param cards the number of cards
+     * @return the probability of 1 to cards rising sequences, at indices 0 to cards - 1
+     */
+    static double[] risingSequences(int cards) {
+        double[] probabilities = new double[cards + 1];
+        probabilities[1] = 1;
+        for (int n = 2; n <= cards; n++) {
+            for (int k = n; k >= 1; k--) {
+                probabilities[k] = (k * probabilities[k] + (n - k + 1) * probabilities[k - 1]) / n;
+            }
+        }
+        double[] shifted = new double[cards];
+        System.arraycopy(probabilities, 1, shifted, 0, cards);
+        return shifted;
+    }
+
+    /**
+     * Where a worker gets its shuffled decks and shoes from, every one starting from the ordered deck or shoe.
+     */
+    private interface Source extends AutoCloseable {
+
+        /**
+         * Returns a shuffled 52-card deck.
+         *
+         * @param shuffle the number of the shuffle claimed by the worker
+         * @return the cards in the order they will be drawn, valid until the next call
+         * @throws InterruptedException if the shuffle was interrupted
+         */
+        List<Card> deck(long shuffle) throws InterruptedException;
+
+        /**
+         * Returns a shuffled shoe of the rules.
+         *
+         * @param shuffle the number of the shuffle claimed by the worker
+         * @return the cards in the order they will be drawn, valid until the next call
+         * @throws InterruptedException if the shuffle was interrupted
+         */
+        List<Card> shoe(long shuffle) throws InterruptedException;
+
+        @Override
+        void close();
+    }
+
+    /**
+     * Shuffles with {@link Deck#shuffle()}, restoring the ordered cards with the claimed shuffle number first.
+     */
+    private static class DeckSource implements Source {
+
+        // Variables
+        private final Deck deck, shoe;
+        private final List<Card> ordered, orderedShoe;
+
+        /**
+         * Constructs the decks of a worker.
+         *
+         * @param rules the rules of the shoe, and whether it is shuffled in the certified mode
+         */
+        DeckSource(Rules rules) {
+            deck = new Deck(1, rules.certifiedShuffle() ? new CertifiedShuffler() : null);
+            shoe = new Deck(rules.decks(), rules.certifiedShuffle() ? new CertifiedShuffler() : null);
+            ordered = deck.cards();
+            orderedShoe = shoe.cards();
+        }
+
+        @Override
+        public List<Card> deck(long shuffle) {
+            deck.restore(ordered, SEED, shuffle);
+            deck.shuffle();
+            return deck.getDeck();
+        }
+
+        @Override
+        public List<Card> shoe(long shuffle) {
+            shoe.restore(orderedShoe, ~SEED, shuffle);
+            shoe.shuffle();
+            return shoe.getDeck();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Takes the shoes of two suppliers of its own, a 52-card one and one of the rules, one after another.
+     * The claimed shuffle numbers only count the shuffles: a supplier numbers its shoes itself, from a range
+     * {@link #SUPPLIER_STRIDE} wide for every worker.
+     */
+    private static class SupplierSource implements Source {
+
+        // Variables
+        private final ShoeSupplier decks, shoes;
+        private Card[] deck, shoe;
+
+        /**
+         * Starts the suppliers of a worker.
+         *
+         * @param rules the rules of the shoe, and whether it is shuffled in the certified mode
+         * @param worker the number of the worker
+         */
+        SupplierSource(Rules rules, int worker) {
+            decks = new ShoeSupplier(1, SUPPLIER_SEED, worker * SUPPLIER_STRIDE, rules.certifiedShuffle());
+            shoes = new ShoeSupplier(rules.decks(), ~SUPPLIER_SEED, worker * SUPPLIER_STRIDE, rules.certifiedShuffle());
+        }
+
+        @Override
+        public List<Card> deck(long shuffle) throws InterruptedException {
+            if (deck != null) {
+                decks.recycle(deck);
+            }
+            deck = decks.take().cards();
+            return Arrays.asList(deck);
+        }
+
+        @Override
+        public List<Card> shoe(long shuffle) throws InterruptedException {
+            if (shoe != null) {
+                shoes.recycle(shoe);
+            }
+            shoe = shoes.take().cards();
+            return Arrays.asList(shoe);
+        }
+
+        @Override
+        public void close() {
+            decks.close();
+            shoes.close();
+        }
+    }
+
+    /**
+     * The histograms a worker streams its shuffles into. Their sizes are fixed by the deck and the rules.
+     */
+    private static class Histograms {
+
+        // Variables
+        private final int dealt;
+        private final long[] positions = new long[CARDS * CARDS];
+        private final long[] successions = new long[CARDS];
+        private final long[] risingSequences = new long[CARDS];
+        private final long[] penetration;
+        private final long[] firstRound = new long[ROUND * RANKS];
+        private long shuffles;
+
+        /**
+         * Constructs empty histograms.
+         *
+         * @param dealt the number of cards of the shoe dealt before the cut card
+         */
+        Histograms(int dealt) {
+            this.dealt = dealt;
+            penetration = new long[dealt * RANKS];
+        }
+
+        /**
+         * Adds the counts of other histograms to these.
+         *
+         * @param other the histograms of another worker
+         */
+        void add(Histograms other) {
+            add(positions, other.positions);
+            add(successions, other.successions);
+            add(risingSequences, other.risingSequences);
+            add(penetration, other.penetration);
+            add(firstRound, other.firstRound);
+            shuffles += other.shuffles;
+        }
+
+        /**
+         * Adds counts element by element.
+         *
+         * @param counts the counts added to
+         * @param other the counts added
+         */
+        private static void add(long[] counts, long[] other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other[i];
+            }
+        }
+    }
+
+    /**
+     * A worker counting the decks and shoes of its source until the shuffles or the time budget run out.
+     */
+    private static class Worker implements Runnable {
+
+        // Variables
+        private final Source source;
+        private final AtomicLong claimed;
+        private final long deadline;
+        private final int[] position = new int[CARDS];
+        private final Histograms histograms;
+        private volatile Throwable failure;
+
+        /**
+         * Constructs a worker.
+         *
+         * @param rules the rules of the shoe
+         * @param source the source of the shuffles, closed when the worker is done
+         * @param claimed the number of shuffles claimed by all workers
+         * @param deadline the {@link System#nanoTime()} at which the budget is spent
+         */
+        Worker(Rules rules, Source source, AtomicLong claimed, long deadline) {
+            this.source = source;
+            this.claimed = claimed;
+            this.deadline = deadline;
+            histograms = new Histograms(52 * rules.decks() - rules.reshuffleThreshold());
+        }
+
+        /**
+         * Claims blocks of shuffles and counts them.
+         */
+        @Override
+        public void run() {
+            try (source) {
+                long first;
+                while (System.nanoTime() < deadline && (first = claimed.getAndAdd(BLOCK)) < SHUFFLES) {
+                    long last = Math.min(first + BLOCK, SHUFFLES);
+                    for (long shuffle = first; shuffle < last; shuffle++) {
+                        countDeck(source.deck(shuffle));
+                        countShoe(source.shoe(shuffle));
+                        histograms.shuffles++;
+                    }
+                }
+            } catch (RuntimeException | InterruptedException e) {
+                failure = e;
+            }
+        }
+
+        /**
+         * Counts the positions, successions and rising sequences of the cards of a shuffled deck.
+         *
+         * @param cards the shuffled deck
+         */
+        private void countDeck(List<Card> cards) {
+            for (int i = 0; i < CARDS; i++) {
+                int card = cards.get(i).index();
+                position[card] = i;
+                histograms.positions[card * CARDS + i]++;
+            }
+            int successions = 0, risingSequences = 1;
+            for (int card = 0; card < CARDS - 1; card++) {
+                if (position[card + 1] == position[card] + 1) {
+                    successions++;
+                }
+                if (position[card + 1] < position[card]) {
+                    risingSequences++;
+                }
+            }
+            histograms.successions[successions]++;
+            histograms.risingSequences[risingSequences - 1]++;
+        }
+
+        /**
+         * Deals a shuffled shoe down to the cut card, counting the rank at every position
+         * and at the four positions of the first round.
+         *
+         * @param cards the shuffled shoe
+         */
+        private void countShoe(List<Card> cards) {
+            for (int i = 0; i < histograms.dealt; i++) {
+                int rank = cards.get(i).rank().ordinal();
+                histograms.penetration[i * RANKS + rank]++;
+                if (i < ROUND) {
+                    histograms.firstRound[i * RANKS + rank]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * The result of a chi-square test.
+     *
+     * @param name the name of the test
+     * @param statistic the chi-square statistic
+     * @param df the degrees of freedom
+     * @param z the standard score of the statistic, by the Wilson-Hilferty approximation
+     */
+    private record Result(String name, double statistic, int df, double z) {
+
+        /**
+         * Computes the standard score of a statistic.
+         *
+         * @param name the name of the test
+         * @param statistic the chi-square statistic
+         * @param df the degrees of freedom
+         * @return the result
+         */
+        static Result of(String name, double statistic, int df) {
+            double variance = 2.0 / (9 * df);
+            return new Result(name, statistic, df, (Math.cbrt(statistic / df) - (1 - variance)) / Math.sqrt(variance));
+        }
+
+        /**
+         * Returns whether the statistic is within the limit on either side.
+         *
+         * @return true if the test passed
+         */
+        boolean passed() {
+            return Math.abs(z) <= Z_LIMIT;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package storage;
+
+import controller.Game;
+import controller.Scoreboard;
+import model.Card;
+import model.Deck;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of reading {@link GameSnapshot}s, including truncated and corrupt ones, which must not stop the game.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+class GameSnapshotTest {
+
+    @Test
+    void roundTrip() throws IOException {
+        GameSnapshot snapshot = snapshot();
+        assertEquals(snapshot.deck(), read(write(snapshot)).deck());
+        assertEquals(snapshot.playerHand(), read(write(snapshot)).playerHand());
+    }
+
+    @Test
+    void truncatedSnapshotIsAnIOException() throws IOException {
+        byte[] bytes = write(snapshot());
+        for (int length = 0; length < bytes.length; length++) {
+            byte[] truncated = Arrays.copyOf(bytes, length);
+            assertThrows(IOException.class, () -> read(truncated));
+        }
+    }
+
+    @Test
+    void invalidCardIsAnIOException() throws IOException {
+        byte[] bytes = write(snapshot());
+        // The last byte is the dealer's last card
+        bytes[bytes.length - 1] = (byte) 200;
+        assertThrows(IOException.class, () -> read(bytes));
+    }
+
+    @Test
+    void corruptFileStartsANewGame() throws IOException {
+        Path directory = Files.createTempDirectory("snapshots");
+        byte[] bytes = write(snapshot());
+        bytes[bytes.length - 1] = (byte) 200;
+        Files.write(directory.resolve("Player.snap"), bytes);
+        assertNull(new SnapshotStore(directory, "Player").load());
+    }
+
+    /**
+     * Returns a snapshot of a round in play on a one-deck shoe.
+     *
+     * @return the snapshot
+     */
+    private static GameSnapshot snapshot() {
+        List<Card> cards = new Deck(1).cards();
+        return new GameSnapshot("rules", Game.Phase.PLAYER_TURN, new Scoreboard().snapshot(), 1, 2, 0,
+                cards.subList(4, 52), List.of(), cards.subList(0, 2), cards.subList(2, 4));
+    }
+
+    /**
+     * Writes a snapshot to bytes.
+     *
+     * @param snapshot the snapshot
+     * @return its binary form
+     * @throws IOException never
+     */
+    private static byte[] write(GameSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        snapshot.write(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a snapshot from bytes.
+     *
+     * @param bytes the binary form
+     * @return the snapshot
+     * @throws IOException if the bytes do not hold a valid snapshot
+     */
+    private static GameSnapshot read(byte[] bytes) throws IOException {
+        return GameSnapshot.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+}
@@ -0,0 +1,59 @@
+package view;
+
+import model.Rules;
+import org.junit.jupiter.api.Test;
+
+import java.awt.GraphicsEnvironment;
+import java.awt.HeadlessException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of the bookkeeping of the {@link LatencyHarness}, which can run without a display.
+ *
+ * @author ptrzgal
+ * @version 1.0.0.
+ */
+class LatencyHarnessTest {
+
+    @Test
+    void percentilesOfSortedLatencies() {
+        long[] sorted = new long[100];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = (i + 1) * 1_000_000L;
+        }
+        assertEquals(51, LatencyHarness.percentile(sorted, 0.50), 1e-9);
+        assertEquals(91, LatencyHarness.percentile(sorted, 0.90), 1e-9);
+        assertEquals(100, LatencyHarness.percentile(sorted, 0.99), 1e-9);
+        assertEquals(100, LatencyHarness.percentile(sorted, 1.0), 1e-9);
+        assertEquals(3, LatencyHarness.percentile(new long[] {3_000_000}, 0.99), 1e-9);
+    }
+
+    @Test
+    void dispatchesOverAFrameAreStalls() {
+        LatencyHarness.TimingQueue queue = new LatencyHarness.TimingQueue();
+        queue.count(1_000_000);
+        queue.count(LatencyHarness.STALL_NANOS);
+        queue.count(LatencyHarness.STALL_NANOS + 1);
+        queue.count(40_000_000);
+        assertEquals(4, queue.events);
+        assertEquals(2, queue.stalls);
+        assertEquals(LatencyHarness.STALL_NANOS + 40_000_001, queue.stalled);
+        assertEquals(40_000_000, queue.longest);
+        assertEquals(2 * LatencyHarness.STALL_NANOS + 41_000_001, queue.busy);
+
+        queue.reset();
+        assertEquals(0, queue.events);
+        assertEquals(0, queue.busy);
+        assertEquals(0, queue.stalls);
+    }
+
+    @Test
+    void headlessRunIsRefused() throws InterruptedException {
+        if (GraphicsEnvironment.isHeadless()) {
+            assertThrows(HeadlessException.class,
+                    () -> new LatencyHarness().run(Rules.DEFAULT, 1, System.out));
+        }
+    }
+}